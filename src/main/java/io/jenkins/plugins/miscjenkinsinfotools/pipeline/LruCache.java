@@ -0,0 +1,164 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, least recently used map behind the plugin's parse and compile caches and its other bounded maps, with the
+ * hit, miss and eviction counters the metrics read.  All access is synchronized, callers compute a missing value
+ * outside of it unless it is as cheap as {@link #computeIfAbsent} needs it to be.
+ */
+public final class LruCache<K, V> {
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final LruMap<K, V> map;
+
+    public LruCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * @param evicted told about every entry dropped because the cache was full, while the cache is locked, may be null
+     */
+    public LruCache(int maxSize, BiConsumer<K, V> evicted) {
+        this.map = new LruMap<K, V>(maxSize, evictions, evicted);
+    }
+
+    /**
+     * @return the cached value, counted as a hit, or null, counted as a miss
+     */
+    public V get(K key) {
+        V value;
+        synchronized (map) {
+            value = map.get(key);
+        }
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * @return the cached value, counted as a hit, or the one just created for the key while the cache is locked,
+     * counted as a miss
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> create) {
+        V value;
+        boolean created = false;
+        synchronized (map) {
+            value = map.get(key);
+            if (value == null) {
+                value = create.apply(key);
+                map.put(key, value);
+                created = true;
+            }
+        }
+        if (created) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        synchronized (map) {
+            map.put(key, value);
+        }
+    }
+
+    /**
+     * @return the value that was removed, null when there was none
+     */
+    public V remove(K key) {
+        synchronized (map) {
+            return map.remove(key);
+        }
+    }
+
+    public void removeIf(BiPredicate<K, V> condition) {
+        synchronized (map) {
+            map.entrySet().removeIf(e -> condition.test(e.getKey(), e.getValue()));
+        }
+    }
+
+    /**
+     * Removes entries from the least recently used end for as long as the condition holds for them.
+     */
+    public void removeEldestWhile(Predicate<V> condition) {
+        synchronized (map) {
+            for (Iterator<V> it = map.values().iterator(); it.hasNext(); ) {
+                if (!condition.test(it.next())) break;
+                it.remove();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return a copy of the values, the least recently used first
+     */
+    public List<V> values() {
+        synchronized (map) {
+            return new ArrayList<V>(map.values());
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+        private final int maxSize;
+        private final AtomicLong evictions;
+        private final BiConsumer<K, V> evicted;
+
+        LruMap(int maxSize, AtomicLong evictions, BiConsumer<K, V> evicted) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+            this.evictions = evictions;
+            this.evicted = evicted;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() <= maxSize) return false;
+            evictions.incrementAndGet();
+            if (evicted != null) evicted.accept(eldest.getKey(), eldest.getValue());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline;
+
+import hudson.AbortException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+
+/**
+ * Drop in replacement for {@link org.jenkinsci.plugins.workflow.steps.SynchronousStepExecution} that runs
+ * {@link #run()} on the bounded {@link StepThreadPool} as the calling user, so a long scan does not hold the CPS VM
+ * thread of the pipeline, and other pipelines stay responsive meanwhile.
+ * Stopping the step interrupts the running work, long loops should check {@link Thread#interrupted()} now and then.
+ * Work that waits for a result someone else is computing overrides {@link #runAsync()} instead, so it does not hold a
+ * pool thread while it waits.
+ * Nothing of the running work survives a controller restart, so a resumed step fails, just like
+ * {@link org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution} does.
+ */
+public abstract class PooledStepExecution<T> extends StepExecution {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient volatile Future<?> task;
+    private transient volatile boolean stopped;
+
+    protected PooledStepExecution(StepContext context) {
+        super(context);
+    }
+
+    /**
+     * The work of the step, runs on the thread pool, its result or exception completes the step.
+     * Subclasses implement either this or {@link #runAsync()}.
+     */
+    protected T run() throws Exception {
+        throw new AbstractMethodError(getClass().getName() + " must implement run() or runAsync()");
+    }
+
+    /**
+     * Runs on the thread pool like {@link #run()}, but may return a result that is still pending, the step completes
+     * once it is done.  Calls {@link #run()} by default.
+     */
+    protected CompletionStage<T> runAsync() throws Exception {
+        return CompletableFuture.completedFuture(run());
+    }
+
+    @Override
+    public final boolean start() throws Exception {
+        task = StepThreadPool.asCurrentUser().submit(() -> {
+            try {
+                runAsync().whenComplete((result, error) -> {
+                    if (stopped) return;
+                    if (error == null) {
+                        getContext().onSuccess(result);
+                    } else {
+                        getContext().onFailure(error instanceof CompletionException ? error.getCause() : error);
+                    }
+                });
+            } catch (Throwable t) {
+                if (!stopped) getContext().onFailure(t);
+            }
+        });
+        return false;
+    }
+
+    @Override
+    public void stop(Throwable cause) throws Exception {
+        stopped = true;
+        Future<?> running = task;
+        if (running != null) running.cancel(true);
+        getContext().onFailure(cause);
+    }
+
+    @Override
+    public void onResume() {
+        getContext().onFailure(new AbortException("Resume after a restart not supported for this step"));
+    }
+
+    @Override
+    public String getStatus() {
+        Future<?> running = task;
+        if (running == null) return "not yet scheduled";
+        return running.isDone() ? "completed" : "running on the step thread pool";
+    }
+}
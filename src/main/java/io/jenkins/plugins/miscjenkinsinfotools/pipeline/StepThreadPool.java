@@ -0,0 +1,49 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import jenkins.security.ImpersonatingExecutorService;
+import jenkins.util.ContextResettingExecutorService;
+import jenkins.util.SystemProperties;
+
+/**
+ * Bounded thread pool shared by the plugin's steps for work that should not run on the CPS VM thread.
+ * The number of threads can be changed with the system property {@code <class name>.size}.
+ */
+public final class StepThreadPool {
+
+    static final int SIZE = SystemProperties.getInteger(
+            StepThreadPool.class.getName() + ".size",
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    private static ExecutorService executor;
+
+    private StepThreadPool() {}
+
+    public static synchronized ExecutorService get() {
+        if (executor == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                    SIZE,
+                    SIZE,
+                    60L,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "misc-info-tools step"));
+            pool.allowCoreThreadTimeOut(true);
+            executor = new ContextResettingExecutorService(pool);
+        }
+        return executor;
+    }
+
+    /**
+     * The shared pool, running every task as the user that is calling this method, just like the step would have.
+     */
+    public static ExecutorService asCurrentUser() {
+        return new ImpersonatingExecutorService(get(), Jenkins.getAuthentication2());
+    }
+}
@@ -0,0 +1,199 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.api;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.RootAction;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit.NodeLabelIndex;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator.FindJobs;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator.JobPathIndex;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator.JobPatternSet;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator.JobPatternSetCache;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.PatternSyntaxException;
+import jenkins.model.Jenkins;
+import net.sf.json.util.JSONUtils;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.verb.GET;
+
+/**
+ * JSON endpoints answering the findJobs and getAllLabelsForAllNodes queries for tools outside of a pipeline.
+ * <ul>
+ *   <li>{@code misc-info-tools/jobs?include=...&exclude=...&limit=...&offset=...}: matching job paths in name order
+ *   <li>{@code misc-info-tools/labels?label=...&node=...}: nodes with their labels
+ * </ul>
+ * Every response carries an ETag made of the generation of the index it was read from and a digest of the query and
+ * the user, so a poll with a matching If-None-Match header is answered with 304 without scanning anything.  The body is
+ * written while the index is walked instead of being built in memory first.
+ * Permission changes do not move the generation, a client that needs to see them right away should not send the
+ * header.
+ */
+@Extension
+public class InfoToolsApi implements RootAction {
+
+    /** Tells the generations of different controller starts apart, the job path index counts from 0 every time. */
+    private static final String BOOT = UUID.randomUUID().toString();
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Misc Info Tools API";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "misc-info-tools";
+    }
+
+    @GET
+    public void doJobs(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+        List<String> includes = JobPatternSetCache.normalize(values(req, "include"));
+        List<String> excludes = JobPatternSetCache.normalize(values(req, "exclude"));
+        int limit = number(req, "limit");
+        int offset = number(req, "offset");
+        if (limit < 0 || offset < 0) {
+            rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, "limit and offset must be numbers that are not negative");
+            return;
+        }
+        JobPatternSet patterns;
+        try {
+            patterns = JobPatternSetCache.get().get(includes, excludes);
+        } catch (PatternSyntaxException e) {
+            rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        // read before the scan, a change made during the scan then shows up on the next poll
+        long generation = JobPathIndex.get().getGeneration();
+        String etag = etag("jobs", generation, Arrays.asList(includes, excludes, limit, offset));
+        if (notModified(req, rsp, etag)) return;
+
+        Writer out = startJson(rsp, etag);
+        out.write("{\"generation\":" + generation + ",\"jobs\":[");
+        final int[] skip = {offset};
+        final int[] written = {0};
+        try {
+            FindJobs.forEachVisibleMatch(patterns, name -> {
+                if (skip[0] > 0) {
+                    skip[0]--;
+                    return true;
+                }
+                write(out, (written[0]++ > 0 ? "," : "") + JSONUtils.quote(name));
+                return limit == 0 || written[0] < limit;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while listing jobs", e);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.write("]}");
+        out.flush();
+    }
+
+    @GET
+    public void doLabels(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+        String label = Util.fixEmptyAndTrim(req.getParameter("label"));
+        String node = Util.fixEmptyAndTrim(req.getParameter("node"));
+        NodeLabelIndex index = NodeLabelIndex.get();
+        long generation = index.getGeneration();
+        String etag = etag("labels", generation, Arrays.asList(label, node));
+        if (notModified(req, rsp, etag)) return;
+
+        Collection<String> names;
+        if (label != null) {
+            names = index.nodesWith(label);
+        } else if (node != null) {
+            names = Collections.singletonList(node);
+        } else {
+            names = index.nodeNames();
+        }
+        Writer out = startJson(rsp, etag);
+        out.write("{\"generation\":" + generation + ",\"nodes\":{");
+        boolean first = true;
+        for (String name : names) {
+            if (node != null && !node.equals(name)) continue;
+            // one node at a time, so a slow client never holds the index lock
+            List<String> labels = index.labelsOf(name);
+            if (labels == null) continue;
+            if (!first) out.write(',');
+            first = false;
+            out.write(JSONUtils.quote(name));
+            out.write(":[");
+            for (int i = 0; i < labels.size(); i++) {
+                if (i > 0) out.write(',');
+                out.write(JSONUtils.quote(labels.get(i)));
+            }
+            out.write(']');
+        }
+        out.write("}}");
+        out.flush();
+    }
+
+    static String etag(String kind, long generation, List<?> query) {
+        String user = Jenkins.getAuthentication2().getName();
+        return "\"" + kind + "-" + generation + "-" + Util.getDigestOf(BOOT + "\n" + user + "\n" + query) + "\"";
+    }
+
+    /**
+     * Answers with 304 when the client already has the response for this ETag.
+     */
+    private static boolean notModified(StaplerRequest2 req, StaplerResponse2 rsp, String etag) {
+        String header = req.getHeader("If-None-Match");
+        if (header == null) return false;
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag) || tag.equals("*")) {
+                rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                rsp.setHeader("ETag", etag);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Writer startJson(StaplerResponse2 rsp, String etag) throws IOException {
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.setHeader("ETag", etag);
+        // the answer depends on the user, and must be checked again before it is reused
+        rsp.setHeader("Cache-Control", "private, no-cache");
+        return rsp.getWriter();
+    }
+
+    private static void write(Writer out, String text) {
+        try {
+            out.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> values(StaplerRequest2 req, String name) {
+        String[] values = req.getParameterValues(name);
+        return values == null ? Collections.<String>emptyList() : Arrays.asList(values);
+    }
+
+    private static int number(StaplerRequest2 req, String name) {
+        String value = Util.fixEmptyAndTrim(req.getParameter(name));
+        if (value == null) return 0;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit;
+
+import hudson.Extension;
+import hudson.model.Label;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.PooledStepExecution;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+public class FindNodesByLabel extends Step implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String expression;
+
+    @DataBoundConstructor
+    public FindNodesByLabel(String expression) {
+        if (expression == null || expression.trim().equals("")) {
+            throw new IllegalArgumentException("expression must not be empty");
+        }
+        this.expression = expression;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new StepExecutionImpl(this, context);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "findNodesByLabel";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Find the Jenkins Nodes matching a label expression";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.emptySet();
+        }
+    }
+
+    private static class StepExecutionImpl extends PooledStepExecution<ArrayList<String>> {
+
+        private static final long serialVersionUID = FindNodesByLabel.serialVersionUID;
+
+        private final String expression;
+
+        StepExecutionImpl(FindNodesByLabel step, StepContext context) {
+            super(context);
+            this.expression = step.expression;
+        }
+
+        @Override
+        protected ArrayList<String> run() throws Exception {
+            Label label = LabelExpressionCache.get().get(expression);
+            return new ArrayList<String>(NodeLabelIndex.get().nodesMatching(labels -> label.matches(labels::contains)));
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.labels.LabelAtom;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.PooledStepExecution;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+public class GetLabelCapacity extends Step implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private ArrayList<String> labels = new ArrayList<String>();
+
+    @DataBoundConstructor
+    public GetLabelCapacity() {}
+
+    public ArrayList<String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * Labels or label expressions to report on, every label of every node when empty.
+     */
+    @DataBoundSetter
+    public void setLabels(ArrayList<String> labels) {
+        this.labels = new ArrayList<String>();
+        if (labels == null) return;
+        for (String label : labels) {
+            if (label == null || label.trim().equals("")) continue;
+            this.labels.add(label);
+        }
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new StepExecutionImpl(this, context);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "getLabelCapacity";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Get the executor capacity of Jenkins labels";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.emptySet();
+        }
+    }
+
+    private static class StepExecutionImpl extends PooledStepExecution<HashMap<String, HashMap<String, Integer>>> {
+
+        private static final long serialVersionUID = GetLabelCapacity.serialVersionUID;
+
+        private final ArrayList<String> labels;
+
+        StepExecutionImpl(GetLabelCapacity step, StepContext context) {
+            super(context);
+            this.labels = new ArrayList<String>(step.labels);
+        }
+
+        @Override
+        protected HashMap<String, HashMap<String, Integer>> run() throws Exception {
+            Jenkins server = Jenkins.getInstanceOrNull();
+            if (server == null) return new HashMap<String, HashMap<String, Integer>>();
+            // parse once up front, the requested keys are returned as written
+            Map<String, Label> expressions = new LinkedHashMap<String, Label>();
+            for (String label : labels) {
+                expressions.put(label, LabelExpressionCache.get().get(label));
+            }
+            return capacity(server, expressions);
+        }
+    }
+
+    /**
+     * One pass over the computers and one over the queue.
+     * Offline computers add nothing, executors of a computer that does not accept tasks are never idle.
+     */
+    static HashMap<String, HashMap<String, Integer>> capacity(Jenkins server, Map<String, Label> expressions)
+            throws InterruptedException {
+        NodeLabelIndex index = NodeLabelIndex.get();
+        Map<String, Counts> counts = new HashMap<String, Counts>();
+        // queue items are matched by the canonical name of their label
+        Map<String, Counts> byName = new HashMap<String, Counts>();
+        for (Map.Entry<String, Label> e : expressions.entrySet()) {
+            Counts c = new Counts();
+            counts.put(e.getKey(), c);
+            byName.put(e.getValue().getName(), c);
+        }
+
+        for (Computer computer : server.getComputers()) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            Node node = computer.getNode();
+            if (node == null || computer.isOffline()) continue;
+            Set<String> names = labelNames(index, node);
+            int total = computer.countExecutors();
+            int busy = computer.countBusy();
+            int idle = computer.isAcceptingTasks() ? computer.countIdle() : 0;
+            if (expressions.isEmpty()) {
+                for (String name : names) {
+                    Counts c = counts.computeIfAbsent(name, k -> new Counts());
+                    byName.putIfAbsent(name, c);
+                    c.add(total, busy, idle);
+                }
+                continue;
+            }
+            for (Map.Entry<String, Label> e : expressions.entrySet()) {
+                if (e.getValue().matches(names::contains)) counts.get(e.getKey()).add(total, busy, idle);
+            }
+        }
+
+        for (Queue.Item item : server.getQueue().getItems()) {
+            Label assigned = item.getAssignedLabel();
+            if (assigned == null) continue;
+            Counts c = byName.get(assigned.getName());
+            if (c != null) c.queued++;
+        }
+
+        HashMap<String, HashMap<String, Integer>> result = new HashMap<String, HashMap<String, Integer>>();
+        for (Map.Entry<String, Counts> e : counts.entrySet()) {
+            result.put(e.getKey(), e.getValue().toMap());
+        }
+        return result;
+    }
+
+    /**
+     * Agents come from the index, the built-in node is not in there and is parsed.
+     */
+    private static Set<String> labelNames(NodeLabelIndex index, Node node) {
+        if (!(node instanceof Jenkins)) {
+            Set<String> names = index.labelSetOf(node.getNodeName());
+            if (names != null) return names;
+        }
+        Set<String> names = new HashSet<String>();
+        for (LabelAtom atom : node.getAssignedLabels()) {
+            names.add(atom.getName());
+        }
+        return names;
+    }
+
+    private static final class Counts {
+
+        private int total;
+        private int busy;
+        private int idle;
+        private int queued;
+
+        void add(int total, int busy, int idle) {
+            this.total += total;
+            this.busy += busy;
+            this.idle += idle;
+        }
+
+        HashMap<String, Integer> toMap() {
+            HashMap<String, Integer> map = new HashMap<String, Integer>();
+            map.put("total", total);
+            map.put("busy", busy);
+            map.put("idle", idle);
+            map.put("queued", queued);
+            return map;
+        }
+    }
+}
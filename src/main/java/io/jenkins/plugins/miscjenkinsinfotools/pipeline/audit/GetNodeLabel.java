@@ -1,31 +1,94 @@
 package io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit;
 
 import hudson.Extension;
-import hudson.model.Node;
-import hudson.model.labels.LabelAtom;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.PooledStepExecution;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.handle.MapHandle;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.handle.ResultStore;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics.StepMetrics;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
-import org.jenkinsci.plugins.workflow.steps.SynchronousStepExecution;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 public class GetNodeLabel extends Step implements Serializable {
 
     private static final long serialVersionUID = -4036292666957971360L;
 
+    private String label = "";
+    private String node = "";
+    private long since = -1;
+    private boolean returnHandle = false;
+
     @DataBoundConstructor
     public GetNodeLabel() {}
 
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Only return the nodes carrying this label.
+     */
+    @DataBoundSetter
+    public void setLabel(String label) {
+        this.label = label == null ? "" : label.trim();
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * Only return this node.
+     */
+    @DataBoundSetter
+    public void setNode(String node) {
+        this.node = node == null ? "" : node.trim();
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    /**
+     * Only return what changed after this generation, together with the current generation.
+     */
+    @DataBoundSetter
+    public void setSince(long since) {
+        this.since = since;
+    }
+
+    public boolean getReturnHandle() {
+        return returnHandle;
+    }
+
+    /**
+     * Keeps the map on the controller and returns a small {@link MapHandle} to it instead of the map.
+     */
+    @DataBoundSetter
+    public void setReturnHandle(boolean returnHandle) {
+        this.returnHandle = returnHandle;
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
-        return new StepExecutionImpl(context);
+        if (since >= 0 && !(label.equals("") && node.equals(""))) {
+            throw new IllegalArgumentException("since can not be combined with label or node");
+        }
+        if (since >= 0 && returnHandle) {
+            throw new IllegalArgumentException("since can not be combined with returnHandle");
+        }
+        return new StepExecutionImpl(this, context);
     }
 
     @Extension
@@ -47,37 +110,54 @@ public class GetNodeLabel extends Step implements Serializable {
         }
     }
 
-    private static class StepExecutionImpl extends SynchronousStepExecution<HashMap<String, ArrayList<String>>> {
+    private static class StepExecutionImpl extends PooledStepExecution<Object> {
 
         private static final long serialVersionUID = GetNodeLabel.serialVersionUID;
 
-        StepExecutionImpl(StepContext context) {
+        private final String label;
+        private final String node;
+        private final long since;
+        private final boolean returnHandle;
+
+        StepExecutionImpl(GetNodeLabel step, StepContext context) {
             super(context);
+            this.label = step.label;
+            this.node = step.node;
+            this.since = step.since;
+            this.returnHandle = step.returnHandle;
         }
 
         @Override
-        protected HashMap<String, ArrayList<String>> run() throws Exception {
-            Jenkins server = Jenkins.getInstanceOrNull();
-            HashMap<String, ArrayList<String>> result = new HashMap<String, ArrayList<String>>();
-
-            if (server == null) return result;
-            for (Node node : server.getNodes()) {
-                String name = node.getNodeName();
-                ArrayList<String> list = null;
-                if (result.containsKey(name)) {
-                    list = result.get(name);
-                } else {
-                    list = new ArrayList<String>();
-                    result.put(name, list);
+        protected Object run() throws Exception {
+            try (StepMetrics.Sample sample = StepMetrics.begin("getAllLabelsForAllNodes", getContext())) {
+                NodeLabelIndex index = NodeLabelIndex.get();
+                if (since >= 0) {
+                    HashMap<String, Object> changes = index.changesSince(since);
+                    int changed = ((Map<?, ?>) changes.get("nodes")).size();
+                    sample.scanned(changed).size(changed);
+                    return sample.ok(changes);
                 }
-                for (LabelAtom label : node.getAssignedLabels()) {
-                    String str = label.getName();
-                    if (str.equals(name)) continue;
-                    list.add(str);
+                if (label.equals("") && node.equals("")) {
+                    HashMap<String, ArrayList<String>> all = index.snapshot();
+                    sample.scanned(all.size()).size(all.size());
+                    return sample.ok(wrap(all));
                 }
+
+                HashMap<String, ArrayList<String>> result = new HashMap<String, ArrayList<String>>();
+                Collection<String> names = label.equals("") ? Collections.singletonList(node) : index.nodesWith(label);
+                for (String name : names) {
+                    if (!node.equals("") && !node.equals(name)) continue;
+                    List<String> labels = index.labelsOf(name);
+                    if (labels != null) result.put(name, new ArrayList<String>(labels));
+                }
+                sample.scanned(names.size()).size(result.size());
+                return sample.ok(wrap(result));
             }
+        }
 
-            return result;
+        private Object wrap(HashMap<String, ArrayList<String>> result) throws Exception {
+            if (!returnHandle) return result;
+            return MapHandle.of(ResultStore.ownerOf(getContext()), result);
         }
     }
 }
@@ -0,0 +1,52 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit;
+
+import hudson.model.Label;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.LruCache;
+import jenkins.util.SystemProperties;
+
+/**
+ * Bounded, least recently used cache of parsed label expressions shared by every findNodesByLabel call.
+ * Builds ask for the same few expressions over and over, so the parser only runs the first time.  Expressions that do
+ * not parse are not cached.  The size can be changed with the system property {@code <class name>.size}.
+ */
+public final class LabelExpressionCache {
+
+    static final int SIZE = SystemProperties.getInteger(LabelExpressionCache.class.getName() + ".size", 256);
+
+    private static final LabelExpressionCache INSTANCE = new LabelExpressionCache(SIZE);
+
+    private final LruCache<String, Label> cache;
+
+    LabelExpressionCache(int maxSize) {
+        this.cache = new LruCache<String, Label>(maxSize);
+    }
+
+    public static LabelExpressionCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the parsed form of the expression, parsing it only when it is not cached yet.
+     * @throws IllegalArgumentException if the expression is not a valid label expression
+     */
+    public Label get(String expression) {
+        String key = expression.trim();
+        Label label = cache.get(key);
+        if (label != null) return label;
+        label = Label.parseExpression(key);
+        cache.put(key, label);
+        return label;
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,437 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.model.labels.LabelAtom;
+import hudson.model.listeners.ItemListener;
+import hudson.slaves.ComputerListener;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.model.NodeListener;
+import jenkins.util.SystemProperties;
+
+/**
+ * Node to labels and label to nodes index of every agent, the built-in node is left out just like
+ * {@link Jenkins#getNodes()} does.
+ * The index is filled once and then kept current by node and computer events, so a lookup by label or by node does
+ * not have to scan every node and parse its label string.  A node is only parsed again when its label string changed,
+ * labels contributed by a {@link hudson.model.LabelFinder} are picked up whenever the agent comes online.
+ * The methods taking plain names do not need a running Jenkins.
+ * <p>
+ * Every added, removed or relabelled node bumps a generation number and is written to a bounded change log, so callers
+ * can ask for only what changed since the generation they saw last.  The generation starts from the clock when the
+ * controller starts, which keeps numbers handed out before a restart from being mistaken for current ones.  The log
+ * length can be changed with the system property {@code <class name>.changeLogSize}.
+ */
+public final class NodeLabelIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(NodeLabelIndex.class.getName());
+
+    static final int CHANGE_LOG_SIZE =
+            SystemProperties.getInteger(NodeLabelIndex.class.getName() + ".changeLogSize", 10000);
+
+    private static final NodeLabelIndex INSTANCE = new NodeLabelIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Both maps are only read or written under the lock, {@link #rebuild()} swaps them for complete new ones. */
+    private Map<String, Entry> nodes = new HashMap<String, Entry>();
+    private Map<String, Set<String>> nodesByLabel = new HashMap<String, Set<String>>();
+    private final ArrayDeque<Change> changes = new ArrayDeque<Change>();
+    private final int changeLogSize;
+    private volatile long generation = System.currentTimeMillis();
+    /** Oldest generation a delta can still be computed from, older ones get the full map. */
+    private long oldest = generation;
+    private volatile boolean loaded = false;
+
+    NodeLabelIndex() {
+        this(CHANGE_LOG_SIZE);
+    }
+
+    NodeLabelIndex(int changeLogSize) {
+        this.changeLogSize = changeLogSize;
+    }
+
+    public static NodeLabelIndex get() {
+        NodeLabelIndex index = INSTANCE;
+        if (!index.loaded) index.load();
+        return index;
+    }
+
+    /**
+     * @return the names of the nodes carrying the label, sorted, empty when there is none
+     */
+    public List<String> nodesWith(String label) {
+        lock.readLock().lock();
+        try {
+            Set<String> names = nodesByLabel.get(label);
+            if (names == null) return Collections.emptyList();
+            List<String> result = new ArrayList<String>(names);
+            Collections.sort(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates a condition against the label set of every node, the sets include each node's own name.
+     * @return the names of the nodes whose labels satisfy the condition, sorted
+     */
+    public List<String> nodesMatching(Predicate<Set<String>> condition) {
+        List<String> result = new ArrayList<String>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, Entry> e : nodes.entrySet()) {
+                if (condition.test(e.getValue().labels)) result.add(e.getKey());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * @return the labels of the node without its own name, sorted, null when the node is not known
+     */
+    public List<String> labelsOf(String node) {
+        lock.readLock().lock();
+        try {
+            Entry entry = nodes.get(node);
+            return entry == null ? null : entry.labelList(node);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return every label of the node including its own name, null when the node is not known
+     */
+    public Set<String> labelSetOf(String node) {
+        lock.readLock().lock();
+        try {
+            Entry entry = nodes.get(node);
+            return entry == null ? null : new HashSet<String>(entry.labels);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The map getAllLabelsForAllNodes always returned: every node with its labels, without its own name.
+     */
+    public HashMap<String, ArrayList<String>> snapshot() {
+        lock.readLock().lock();
+        try {
+            HashMap<String, ArrayList<String>> result = new HashMap<String, ArrayList<String>>();
+            for (Map.Entry<String, Entry> e : nodes.entrySet()) {
+                result.put(e.getKey(), e.getValue().labelList(e.getKey()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the names of every node in the index, sorted
+     */
+    public List<String> nodeNames() {
+        List<String> result = new ArrayList<String>(names());
+        Collections.sort(result);
+        return result;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Everything that changed after the given generation: the current labels of every added or relabelled node, and
+     * the names of the removed ones.  When the change log does not reach back that far the whole map is returned and
+     * full is set.
+     * @return a map with the keys generation, full, nodes and removed
+     */
+    public HashMap<String, Object> changesSince(long since) {
+        HashMap<String, Object> result = new HashMap<String, Object>();
+        lock.readLock().lock();
+        try {
+            result.put("generation", generation);
+            if (since < oldest || since > generation) {
+                result.put("full", true);
+                result.put("nodes", snapshot());
+                result.put("removed", new ArrayList<String>());
+                return result;
+            }
+            HashMap<String, ArrayList<String>> changed = new HashMap<String, ArrayList<String>>();
+            TreeSet<String> removed = new TreeSet<String>();
+            for (Iterator<Change> it = changes.descendingIterator(); it.hasNext(); ) {
+                Change change = it.next();
+                if (change.generation <= since) break;
+                Entry entry = nodes.get(change.node);
+                if (entry != null) {
+                    changed.put(change.node, entry.labelList(change.node));
+                } else {
+                    removed.add(change.node);
+                }
+            }
+            result.put("full", false);
+            result.put("nodes", changed);
+            result.put("removed", new ArrayList<String>(removed));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the labels of a node, the label names include the node's own name like {@link Node#getAssignedLabels()}.
+     */
+    void put(String node, String labelString, Collection<String> labels) {
+        Set<String> names = new HashSet<String>(labels);
+        lock.writeLock().lock();
+        try {
+            Entry old = nodes.put(node, new Entry(labelString, names));
+            if (old != null) unlink(node, old.labels);
+            for (String label : names) {
+                nodesByLabel.computeIfAbsent(label, k -> new HashSet<String>()).add(node);
+            }
+            // an agent coming online again with the same labels is not a change
+            if (old == null || !old.labels.equals(names)) logChange(node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String node) {
+        lock.writeLock().lock();
+        try {
+            Entry old = nodes.remove(node);
+            if (old != null) {
+                unlink(node, old.labels);
+                logChange(node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forgets the change log, every caller gets the full map next time.
+     */
+    private void restartLog() {
+        changes.clear();
+        generation++;
+        oldest = generation;
+    }
+
+    private void logChange(String node) {
+        generation++;
+        changes.addLast(new Change(generation, node));
+        while (changes.size() > changeLogSize) {
+            oldest = changes.removeFirst().generation;
+        }
+    }
+
+    private void unlink(String node, Set<String> labels) {
+        for (String label : labels) {
+            Set<String> holders = nodesByLabel.get(label);
+            if (holders == null) continue;
+            holders.remove(node);
+            if (holders.isEmpty()) nodesByLabel.remove(label);
+        }
+    }
+
+    private String labelStringOf(String node) {
+        lock.readLock().lock();
+        try {
+            Entry entry = nodes.get(node);
+            return entry == null ? null : entry.labelString;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<String> names() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<String>(nodes.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Parses the labels of the node outside of the lock and stores them.
+     * Node events go through the same monitor as {@link #rebuild()}, so one that arrives while a rebuild is running
+     * is applied on top of the new maps instead of being overwritten by them.  Before the first load there is nothing
+     * to update, the load reads the node list the event already changed.
+     */
+    synchronized void update(Node node) {
+        if (!loaded || node instanceof Jenkins) return;
+        put(node.getNodeName(), node.getLabelString(), assignedLabels(node));
+    }
+
+    synchronized void removed(String node) {
+        if (loaded) remove(node);
+    }
+
+    private static Set<String> assignedLabels(Node node) {
+        Set<String> labels = new HashSet<String>();
+        for (LabelAtom atom : node.getAssignedLabels()) {
+            labels.add(atom.getName());
+        }
+        return labels;
+    }
+
+    /**
+     * Brings the index in line with the given node list: gone nodes are dropped, new nodes added, and only nodes whose
+     * label string changed are parsed again.
+     */
+    synchronized void reconcile(Collection<Node> current) {
+        if (!loaded) return;
+        Set<String> gone = names();
+        for (Node node : current) {
+            String name = node.getNodeName();
+            gone.remove(name);
+            String known = labelStringOf(name);
+            if (known == null || !known.equals(node.getLabelString())) update(node);
+        }
+        for (String name : gone) {
+            remove(name);
+        }
+    }
+
+    private synchronized void load() {
+        if (!loaded) rebuild();
+    }
+
+    /**
+     * Parses every node into new maps off to the side and swaps them in at once, so readers see either the old or the
+     * new index, never an empty or a partial one.
+     */
+    synchronized void rebuild() {
+        Jenkins server = Jenkins.getInstanceOrNull();
+        if (server == null) return;
+        Map<String, Entry> freshNodes = new HashMap<String, Entry>();
+        Map<String, Set<String>> freshLabels = new HashMap<String, Set<String>>();
+        for (Node node : server.getNodes()) {
+            String name = node.getNodeName();
+            Set<String> labels = assignedLabels(node);
+            freshNodes.put(name, new Entry(node.getLabelString(), labels));
+            for (String label : labels) {
+                freshLabels.computeIfAbsent(label, k -> new HashSet<String>()).add(name);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            nodes = freshNodes;
+            nodesByLabel = freshLabels;
+            // the nodes that were just read are the starting point, not changes
+            restartLog();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded = true;
+        LOGGER.log(Level.FINE, "Indexed the labels of {0} nodes", size());
+    }
+
+    private static final class Entry {
+
+        private final String labelString;
+        private final Set<String> labels;
+
+        Entry(String labelString, Set<String> labels) {
+            this.labelString = labelString == null ? "" : labelString;
+            this.labels = labels;
+        }
+
+        ArrayList<String> labelList(String node) {
+            TreeSet<String> sorted = new TreeSet<String>(labels);
+            sorted.remove(node);
+            return new ArrayList<String>(sorted);
+        }
+    }
+
+    private static final class Change {
+
+        private final long generation;
+        private final String node;
+
+        Change(long generation, String node) {
+            this.generation = generation;
+            this.node = node;
+        }
+    }
+
+    @Extension
+    public static final class Nodes extends NodeListener {
+
+        @Override
+        protected void onCreated(Node node) {
+            INSTANCE.update(node);
+        }
+
+        @Override
+        protected void onUpdated(Node oldOne, Node newOne) {
+            if (!oldOne.getNodeName().equals(newOne.getNodeName())) INSTANCE.removed(oldOne.getNodeName());
+            INSTANCE.update(newOne);
+        }
+
+        @Override
+        protected void onDeleted(Node node) {
+            INSTANCE.removed(node.getNodeName());
+        }
+    }
+
+    @Extension
+    public static final class Computers extends ComputerListener {
+
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            Node node = c.getNode();
+            if (node != null) INSTANCE.update(node);
+        }
+
+        @Override
+        public void onConfigurationChange() {
+            Jenkins server = Jenkins.getInstanceOrNull();
+            if (server != null) INSTANCE.reconcile(server.getNodes());
+        }
+    }
+
+    @Extension
+    public static final class Loaded extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            // a restarted controller brings its own node list
+            INSTANCE.rebuild();
+        }
+    }
+}
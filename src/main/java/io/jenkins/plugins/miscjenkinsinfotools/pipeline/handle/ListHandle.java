@@ -0,0 +1,75 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.handle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
+
+/**
+ * Handle to a list of strings, for example the job paths found by findJobs.  Iterates the list in order.
+ */
+public final class ListHandle extends ResultHandle {
+
+    private static final long serialVersionUID = 1L;
+
+    private ListHandle(String id, int size) {
+        super(id, size);
+    }
+
+    /**
+     * Keeps a copy of the list in the store.
+     * @param owner the externalizable id of the build the list belongs to, may be null
+     */
+    public static ListHandle of(String owner, List<String> list) {
+        Stored stored = new Stored(list);
+        return new ListHandle(ResultStore.get().put(owner, stored), stored.list.size());
+    }
+
+    @Whitelisted
+    public String get(int index) {
+        return stored().list.get(index);
+    }
+
+    /**
+     * Lets a pipeline write {@code handle[index]}.
+     */
+    @Whitelisted
+    public String getAt(int index) {
+        return get(index);
+    }
+
+    @Whitelisted
+    public boolean contains(String element) {
+        return stored().elements.contains(element);
+    }
+
+    /**
+     * Copies the whole list into the pipeline, which is exactly what the handle is meant to avoid for large lists.
+     */
+    @Whitelisted
+    public ArrayList<String> toList() {
+        return new ArrayList<String>(stored().list);
+    }
+
+    @Override
+    String element(int index) {
+        return get(index);
+    }
+
+    private Stored stored() {
+        return (Stored) value();
+    }
+
+    private static final class Stored {
+
+        private final List<String> list;
+        private final Set<String> elements;
+
+        Stored(List<String> list) {
+            this.list = Collections.unmodifiableList(new ArrayList<String>(list));
+            this.elements = new HashSet<String>(list);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.handle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
+
+/**
+ * Handle to a map of names to lists of strings, for example the labels of every node from getAllLabelsForAllNodes.
+ * Iterates the keys in natural order, a lookup returns a copy of the list stored for the key.
+ */
+public final class MapHandle extends ResultHandle {
+
+    private static final long serialVersionUID = 1L;
+
+    private MapHandle(String id, int size) {
+        super(id, size);
+    }
+
+    /**
+     * Keeps a copy of the map in the store.
+     * @param owner the externalizable id of the build the map belongs to, may be null
+     */
+    public static MapHandle of(String owner, Map<String, ? extends List<String>> map) {
+        Stored stored = new Stored(map);
+        return new MapHandle(ResultStore.get().put(owner, stored), stored.keys.size());
+    }
+
+    /**
+     * @return a copy of the list stored for the key, null when there is none
+     */
+    @Whitelisted
+    public ArrayList<String> get(String key) {
+        List<String> value = stored().map.get(key);
+        return value == null ? null : new ArrayList<String>(value);
+    }
+
+    /**
+     * Lets a pipeline write {@code handle[key]}.
+     */
+    @Whitelisted
+    public ArrayList<String> getAt(String key) {
+        return get(key);
+    }
+
+    @Whitelisted
+    public boolean containsKey(String key) {
+        return stored().map.containsKey(key);
+    }
+
+    /**
+     * @return the keys in natural order
+     */
+    @Whitelisted
+    public ArrayList<String> keys() {
+        return new ArrayList<String>(stored().keys);
+    }
+
+    /**
+     * Copies the whole map into the pipeline, which is exactly what the handle is meant to avoid for large maps.
+     */
+    @Whitelisted
+    public HashMap<String, ArrayList<String>> toMap() {
+        HashMap<String, ArrayList<String>> result = new HashMap<String, ArrayList<String>>();
+        for (Map.Entry<String, List<String>> e : stored().map.entrySet()) {
+            result.put(e.getKey(), new ArrayList<String>(e.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    String element(int index) {
+        return stored().keys.get(index);
+    }
+
+    private Stored stored() {
+        return (Stored) value();
+    }
+
+    private static final class Stored {
+
+        private final Map<String, List<String>> map;
+        private final List<String> keys;
+
+        Stored(Map<String, ? extends List<String>> map) {
+            this.map = new HashMap<String, List<String>>();
+            for (Map.Entry<String, ? extends List<String>> e : map.entrySet()) {
+                this.map.put(e.getKey(), new ArrayList<String>(e.getValue()));
+            }
+            this.keys = new ArrayList<String>(new TreeSet<String>(map.keySet()));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.handle;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
+
+/**
+ * Small, serializable stand-in for a large step result kept in the {@link ResultStore}.
+ * Only the id and the size end up in the pipeline's program state, every read goes to the store.  Iterating uses a
+ * serializable cursor, so a for loop with steps inside survives a checkpoint without copying the result.
+ * Once the result is gone every read fails with an {@link IllegalStateException}, the size stays known.
+ */
+public abstract class ResultHandle implements Iterable<String>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+    private final int size;
+
+    protected ResultHandle(String id, int size) {
+        this.id = id;
+        this.size = size;
+    }
+
+    @Whitelisted
+    public int size() {
+        return size;
+    }
+
+    @Whitelisted
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Drops the result from the store before the build ends, the handle can not be read afterwards.
+     */
+    @Whitelisted
+    public void release() {
+        ResultStore.get().remove(id);
+    }
+
+    /**
+     * @return true when the result is still in the store
+     */
+    @Whitelisted
+    public boolean isAvailable() {
+        return ResultStore.get().get(id) != null;
+    }
+
+    @Whitelisted
+    @Override
+    public Iterator<String> iterator() {
+        return new Cursor(this);
+    }
+
+    /**
+     * @return the element the cursor hands out at the given position
+     */
+    abstract String element(int index);
+
+    /**
+     * @return the stored result
+     * @throws IllegalStateException when the result expired, was released or the controller restarted since
+     */
+    final Object value() {
+        Object value = ResultStore.get().get(id);
+        if (value == null) {
+            String why = ResultStore.get().whyGone(id);
+            throw new IllegalStateException("The result behind this handle is gone, "
+                    + (why != null ? why : "it expired, was released or the controller restarted"));
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size + "]";
+    }
+
+    /**
+     * Walks the result by position, so only the handle and a counter are serialized with it.
+     */
+    public static final class Cursor implements Iterator<String>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private final ResultHandle handle;
+        private int next;
+
+        Cursor(ResultHandle handle) {
+            this.handle = handle;
+        }
+
+        @Whitelisted
+        @Override
+        public boolean hasNext() {
+            return next < handle.size;
+        }
+
+        @Whitelisted
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return handle.element(next++);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.handle;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.LruCache;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+
+/**
+ * Bounded, expiring, in memory store for step results that stay on the controller while the pipeline only keeps a
+ * small {@link ResultHandle} to them.
+ * A result is dropped when the build that stored it finishes, when it was not read for the time to live, or when the
+ * store is full and it is the least recently used one.  Nothing is written to disk, so a controller restart drops every
+ * result as well.  The time to live ( milliseconds ) and the number of results kept can be changed with the system
+ * properties {@code <class name>.ttl} and {@code <class name>.maxEntries}.
+ */
+public final class ResultStore {
+
+    static final long TTL = SystemProperties.getLong(ResultStore.class.getName() + ".ttl", TimeUnit.HOURS.toMillis(6));
+    static final int MAX_ENTRIES = SystemProperties.getInteger(ResultStore.class.getName() + ".maxEntries", 1000);
+
+    private static final ResultStore INSTANCE = new ResultStore(MAX_ENTRIES, TTL);
+
+    static final String FULL = "the store was full and it was the least recently read result, raise "
+            + ResultStore.class.getName() + ".maxEntries to keep more";
+    static final String EXPIRED = "it was not read for longer than the time to live";
+    static final String RELEASED = "it was released";
+    static final String FINISHED = "the build that stored it finished";
+
+    private final LruCache<String, Entry> entries;
+    /** Why recently dropped results are gone, so a late read can say so instead of a bare miss. */
+    private final LruCache<String, String> dropped;
+    private final long ttlNanos;
+
+    ResultStore(int maxEntries, long ttlMillis) {
+        this.dropped = new LruCache<String, String>(maxEntries);
+        this.entries = new LruCache<String, Entry>(maxEntries, (id, entry) -> dropped.put(id, FULL));
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public static ResultStore get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Stores a result that must not be modified afterwards.
+     * @param owner the externalizable id of the build the result belongs to, null if it belongs to none
+     * @return the id to look the result up by
+     */
+    public String put(String owner, Object value) {
+        String id = UUID.randomUUID().toString();
+        long now = System.nanoTime();
+        purge(now);
+        entries.put(id, new Entry(id, owner, value, now));
+        return id;
+    }
+
+    /**
+     * @return the stored result, null when it is gone, {@link #whyGone} then tells why
+     */
+    public Object get(String id) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(id);
+        if (entry == null) return null;
+        if (now - entry.lastAccess > ttlNanos) {
+            drop(id, EXPIRED);
+            return null;
+        }
+        entry.lastAccess = now;
+        return entry.value;
+    }
+
+    public void remove(String id) {
+        drop(id, RELEASED);
+    }
+
+    /**
+     * @return why the result was dropped, null when that is no longer known, e.g. after a controller restart
+     */
+    public String whyGone(String id) {
+        return dropped.get(id);
+    }
+
+    /**
+     * @return the owner to store results of the step under, the build it runs in, null outside of a build
+     */
+    public static String ownerOf(StepContext context) throws IOException, InterruptedException {
+        Run<?, ?> run = context.get(Run.class);
+        return run == null ? null : run.getExternalizableId();
+    }
+
+    /**
+     * Drops every result stored by the given build.
+     */
+    public void release(String owner) {
+        if (owner == null) return;
+        entries.removeIf((id, entry) -> {
+            if (!owner.equals(entry.owner)) return false;
+            dropped.put(id, FINISHED);
+            return true;
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return number of results dropped because the store was full
+     */
+    public long getEvictions() {
+        return entries.getEvictions();
+    }
+
+    private void drop(String id, String reason) {
+        if (entries.remove(id) != null) dropped.put(id, reason);
+    }
+
+    private void purge(long now) {
+        // the least recently read results come first, so stop at the first one still alive
+        entries.removeEldestWhile(entry -> {
+            if (now - entry.lastAccess <= ttlNanos) return false;
+            dropped.put(entry.id, EXPIRED);
+            return true;
+        });
+    }
+
+    private static final class Entry {
+
+        private final String id;
+        private final String owner;
+        private final Object value;
+        private volatile long lastAccess;
+
+        Entry(String id, String owner, Object value, long lastAccess) {
+            this.id = id;
+            this.owner = owner;
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    @Extension
+    public static final class Listener extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            INSTANCE.release(run.getExternalizableId());
+        }
+    }
+}
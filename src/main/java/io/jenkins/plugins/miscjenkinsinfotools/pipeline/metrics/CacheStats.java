@@ -0,0 +1,91 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics;
+
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit.LabelExpressionCache;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.netInfo.BuildHostCache;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.UpstreamClosureCache;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator.FindJobsQueryCache;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator.JobPatternSetCache;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the counters the caches keep anyway, nothing is counted twice.
+ */
+public final class CacheStats implements CacheStatsMBean {
+
+    @Override
+    public double getJobPatternSetHitRate() {
+        return rate(JobPatternSetCache.get().getHits(), JobPatternSetCache.get().getMisses());
+    }
+
+    @Override
+    public double getFindJobsQueryHitRate() {
+        return rate(FindJobsQueryCache.get().getShared(), FindJobsQueryCache.get().getEvaluations());
+    }
+
+    @Override
+    public double getLabelExpressionHitRate() {
+        return rate(LabelExpressionCache.get().getHits(), LabelExpressionCache.get().getMisses());
+    }
+
+    @Override
+    public double getBuildHostHitRate() {
+        return rate(BuildHostCache.getHits(), BuildHostCache.getMisses());
+    }
+
+    @Override
+    public double getUpstreamClosureHitRate() {
+        return rate(UpstreamClosureCache.getHits(), UpstreamClosureCache.getMisses());
+    }
+
+    /**
+     * One row per cache for the management page.
+     */
+    public List<Row> getRows() {
+        JobPatternSetCache patterns = JobPatternSetCache.get();
+        FindJobsQueryCache queries = FindJobsQueryCache.get();
+        LabelExpressionCache expressions = LabelExpressionCache.get();
+        List<Row> rows = new ArrayList<Row>();
+        rows.add(new Row("Compiled findJobs patterns", patterns.getHits(), patterns.getMisses()));
+        rows.add(new Row("findJobs query results", queries.getShared(), queries.getEvaluations()));
+        rows.add(new Row("Parsed label expressions", expressions.getHits(), expressions.getMisses()));
+        rows.add(new Row("Build host names", BuildHostCache.getHits(), BuildHostCache.getMisses()));
+        rows.add(new Row(
+                "Transitive upstream jobs", UpstreamClosureCache.getHits(), UpstreamClosureCache.getMisses()));
+        return rows;
+    }
+
+    static double rate(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public static final class Row {
+
+        private final String name;
+        private final long hits;
+        private final long misses;
+
+        Row(String name, long hits, long misses) {
+            this.name = name;
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getHitRate() {
+            return rate(hits, misses);
+        }
+    }
+}
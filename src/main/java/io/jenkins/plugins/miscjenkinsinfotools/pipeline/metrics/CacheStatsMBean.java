@@ -0,0 +1,18 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics;
+
+/**
+ * JMX view of the hit rates of the plugin's caches, registered under
+ * {@code io.jenkins.plugins.misc-info-tools:type=Caches}.  A rate is between 0 and 1, and 0 before the first lookup.
+ */
+public interface CacheStatsMBean {
+
+    double getJobPatternSetHitRate();
+
+    double getFindJobsQueryHitRate();
+
+    double getLabelExpressionHitRate();
+
+    double getBuildHostHitRate();
+
+    double getUpstreamClosureHitRate();
+}
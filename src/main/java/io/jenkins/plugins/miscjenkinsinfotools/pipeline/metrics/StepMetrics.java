@@ -0,0 +1,209 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics;
+
+import hudson.model.Run;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.LruCache;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+
+/**
+ * Per step timings and work counters, plus the jobs whose pipelines spend the most time in the plugin's steps.
+ * Every step gets its {@link StepStats} on first use, which is registered as an MBean right away, and the cache hit
+ * rates are registered as {@link CacheStats}.  {@link StepMetricsLink} shows the same numbers on a management page.
+ * The number of jobs remembered can be changed with the system property {@code <class name>.callers}, the least
+ * recently seen job is forgotten first.
+ */
+public final class StepMetrics {
+
+    private static final Logger LOGGER = Logger.getLogger(StepMetrics.class.getName());
+
+    static final String DOMAIN = "io.jenkins.plugins.misc-info-tools";
+    static final int CALLERS = SystemProperties.getInteger(StepMetrics.class.getName() + ".callers", 500);
+
+    private static final ConcurrentHashMap<String, StepStats> STATS = new ConcurrentHashMap<String, StepStats>();
+    private static final LruCache<String, Caller> CALLER_MAP = new LruCache<String, Caller>(CALLERS);
+    private static final CacheStats CACHES = new CacheStats();
+
+    static {
+        register(DOMAIN + ":type=Caches", CACHES);
+    }
+
+    private StepMetrics() {}
+
+    /**
+     * Starts timing a call of the step, the returned sample records it when closed.
+     * @param step the function name of the step
+     * @param context used to find the job the call comes from, may be null
+     */
+    public static Sample begin(String step, StepContext context) {
+        return new Sample(stats(step), jobOf(context));
+    }
+
+    public static StepStats stats(String step) {
+        return STATS.computeIfAbsent(step, name -> {
+            StepStats stats = new StepStats(name);
+            register(DOMAIN + ":type=Step,name=" + ObjectName.quote(name), stats);
+            return stats;
+        });
+    }
+
+    /**
+     * @return the stats of every step called so far, by name
+     */
+    public static List<StepStats> all() {
+        List<StepStats> result = new ArrayList<StepStats>(STATS.values());
+        result.sort(Comparator.comparing(StepStats::getName));
+        return result;
+    }
+
+    public static CacheStats caches() {
+        return CACHES;
+    }
+
+    /**
+     * @return the jobs that spent the most time in the plugin's steps, busiest first
+     */
+    public static List<Caller> topCallers(int count) {
+        List<Caller> result = new ArrayList<Caller>();
+        for (Caller caller : CALLER_MAP.values()) {
+            result.add(caller.copy());
+        }
+        result.sort(Comparator.comparingLong(Caller::getTotalMillis).reversed());
+        return result.size() > count ? new ArrayList<Caller>(result.subList(0, count)) : result;
+    }
+
+    private static String jobOf(StepContext context) {
+        if (context == null) return null;
+        try {
+            Run<?, ?> run = context.get(Run.class);
+            return run == null ? null : run.getParent().getFullName();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static void callerDone(String job, long millis) {
+        CALLER_MAP.computeIfAbsent(job, Caller::new).add(millis);
+    }
+
+    private static void register(String name, Object bean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            // a plugin reloaded in the same JVM finds the beans of its previous incarnation
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            server.registerMBean(bean, objectName);
+        } catch (JMException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Could not register the MBean " + name, e);
+        }
+    }
+
+    /**
+     * One timed call of a step.  Counters are added up while the step works, and the call counts as failed unless
+     * {@link #ok(Object)} was called before it is closed.
+     * A sample is not safe for concurrent use, only the thread currently working on the step should touch it.
+     */
+    public static final class Sample implements AutoCloseable {
+
+        private final StepStats stats;
+        private final String job;
+        private final long started = System.nanoTime();
+        private long scanned;
+        private long patterns;
+        private long size;
+        private long roundTrips;
+        private boolean succeeded;
+        private boolean closed;
+
+        Sample(StepStats stats, String job) {
+            this.stats = stats;
+            this.job = job;
+        }
+
+        public Sample scanned(long items) {
+            scanned += items;
+            return this;
+        }
+
+        public Sample patterns(long count) {
+            patterns += count;
+            return this;
+        }
+
+        public Sample size(long count) {
+            size += count;
+            return this;
+        }
+
+        public Sample roundTrip() {
+            roundTrips++;
+            return this;
+        }
+
+        /**
+         * Marks the call as successful.
+         * @return the given result, so it can wrap a return statement
+         */
+        public <T> T ok(T result) {
+            succeeded = true;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            stats.record(millis, !succeeded, scanned, patterns, size, roundTrips);
+            if (job != null) callerDone(job, millis);
+        }
+    }
+
+    /**
+     * Calls of the plugin's steps made by the builds of one job.
+     */
+    public static final class Caller {
+
+        private final String job;
+        private long calls;
+        private long totalMillis;
+
+        Caller(String job) {
+            this.job = job;
+        }
+
+        synchronized void add(long millis) {
+            calls++;
+            totalMillis += millis;
+        }
+
+        synchronized Caller copy() {
+            Caller copy = new Caller(job);
+            copy.calls = calls;
+            copy.totalMillis = totalMillis;
+            return copy;
+        }
+
+        public String getJob() {
+            return job;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Management page showing what the plugin's steps cost: {@link StepMetrics} per step, the cache hit rates and the
+ * jobs calling the steps the most.  Only administrators can see it, like every management link.
+ */
+@Extension
+public class StepMetricsLink extends ManagementLink {
+
+    static final int TOP_CALLERS = 20;
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Misc Info Tools Step Metrics";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Timings, work counters and cache hit rates of the misc-info-tools pipeline steps.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "misc-info-tools-metrics";
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    public List<StepStats> getSteps() {
+        return StepMetrics.all();
+    }
+
+    public List<CacheStats.Row> getCaches() {
+        return StepMetrics.caches().getRows();
+    }
+
+    public List<StepMetrics.Caller> getTopCallers() {
+        return StepMetrics.topCallers(TOP_CALLERS);
+    }
+
+    public String decimal(double value) {
+        return String.format(Locale.ENGLISH, "%.1f", value);
+    }
+
+    public String percent(double rate) {
+        return String.format(Locale.ENGLISH, "%.1f%%", rate * 100);
+    }
+}
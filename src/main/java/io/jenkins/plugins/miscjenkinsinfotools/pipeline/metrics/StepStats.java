@@ -0,0 +1,145 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts, a latency histogram and work counters of a single step, updated without locking.
+ * The histogram has fixed buckets, so percentiles are reported as the upper bound of the bucket they fall into.
+ */
+public final class StepStats implements StepStatsMBean {
+
+    static final long[] BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000};
+
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalMillis = new LongAdder();
+    private final LongAdder itemsScanned = new LongAdder();
+    private final LongAdder patternsEvaluated = new LongAdder();
+    private final LongAdder resultSize = new LongAdder();
+    private final LongAdder roundTrips = new LongAdder();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    StepStats(String name) {
+        this.name = name;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long millis, boolean failed, long scanned, long patterns, long size, long trips) {
+        buckets[bucketOf(millis)].increment();
+        calls.increment();
+        if (failed) failures.increment();
+        totalMillis.add(millis);
+        maxMillis.accumulateAndGet(millis, Math::max);
+        itemsScanned.add(scanned);
+        patternsEvaluated.add(patterns);
+        resultSize.add(size);
+        roundTrips.add(trips);
+    }
+
+    static int bucketOf(long millis) {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (millis <= BOUNDS[i]) return i;
+        }
+        return BOUNDS.length;
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the given fraction of the calls, the maximum for the last bucket,
+     *     0 before the first call
+     */
+    public long getPercentileMillis(double fraction) {
+        long[] counts = getHistogramCounts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) return 0;
+        long wanted = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= wanted) return i < BOUNDS.length ? Math.min(BOUNDS[i], getMaxMillis()) : getMaxMillis();
+        }
+        return getMaxMillis();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long count = calls.sum();
+        return count == 0 ? 0 : (double) totalMillis.sum() / count;
+    }
+
+    @Override
+    public long getMaxMillis() {
+        return maxMillis.get();
+    }
+
+    @Override
+    public long getP50Millis() {
+        return getPercentileMillis(0.50);
+    }
+
+    @Override
+    public long getP95Millis() {
+        return getPercentileMillis(0.95);
+    }
+
+    @Override
+    public long getP99Millis() {
+        return getPercentileMillis(0.99);
+    }
+
+    @Override
+    public long[] getHistogramBounds() {
+        return BOUNDS.clone();
+    }
+
+    @Override
+    public long[] getHistogramCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public long getItemsScanned() {
+        return itemsScanned.sum();
+    }
+
+    @Override
+    public long getPatternsEvaluated() {
+        return patternsEvaluated.sum();
+    }
+
+    @Override
+    public long getResultSize() {
+        return resultSize.sum();
+    }
+
+    @Override
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+}
@@ -0,0 +1,42 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics;
+
+/**
+ * JMX view of the {@link StepStats} of one step, registered under
+ * {@code io.jenkins.plugins.misc-info-tools:type=Step,name=<function name>}.
+ */
+public interface StepStatsMBean {
+
+    String getName();
+
+    long getCalls();
+
+    long getFailures();
+
+    double getMeanMillis();
+
+    long getMaxMillis();
+
+    long getP50Millis();
+
+    long getP95Millis();
+
+    long getP99Millis();
+
+    /**
+     * @return the upper bound in milliseconds of every histogram bucket but the last, which has none
+     */
+    long[] getHistogramBounds();
+
+    /**
+     * @return the number of calls that fell into each bucket, one more entry than {@link #getHistogramBounds()}
+     */
+    long[] getHistogramCounts();
+
+    long getItemsScanned();
+
+    long getPatternsEvaluated();
+
+    long getResultSize();
+
+    long getRoundTrips();
+}
@@ -0,0 +1,119 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.netInfo;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers the build host name of every agent connection, so repeated getCurrentBuildHost calls on the same agent
+ * do not pay for a remoting round trip and a DNS lookup each time.
+ * The value is fetched as soon as an agent comes online and dropped when it goes offline, a reconnect opens a new
+ * channel and therefore starts with a fresh entry.
+ * Only a name that came from the source asked for is kept.  A fallback, say the kernel name after a DNS timeout, would
+ * otherwise stand in for that source for as long as the channel lives, which on the controller means until restart.
+ */
+public final class BuildHostCache {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildHostCache.class.getName());
+
+    /** Weak keys, so a channel that is gone without an offline event does not stay around. */
+    private static final Map<VirtualChannel, Map<HostnameResolver.Source, String>> HOSTS =
+            new WeakHashMap<VirtualChannel, Map<HostnameResolver.Source, String>>();
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private BuildHostCache() {}
+
+    public interface Lookup {
+        HostnameResolver.Resolved call() throws Exception;
+    }
+
+    /**
+     * Returns the cached host name for the channel and source, running the lookup only when there is none yet.
+     */
+    public static String get(VirtualChannel channel, HostnameResolver.Source source, Lookup lookup) throws Exception {
+        synchronized (HOSTS) {
+            Map<HostnameResolver.Source, String> hosts = HOSTS.get(channel);
+            String host = hosts == null ? null : hosts.get(source);
+            if (host != null) {
+                HITS.incrementAndGet();
+                return host;
+            }
+        }
+        MISSES.incrementAndGet();
+        HostnameResolver.Resolved resolved = lookup.call();
+        put(channel, source, resolved);
+        return resolved.getName();
+    }
+
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    /**
+     * Remembers the name, unless it only came from a fallback source, then the next call tries the preferred one again.
+     */
+    static void put(VirtualChannel channel, HostnameResolver.Source source, HostnameResolver.Resolved resolved) {
+        if (resolved.getSource() != source) return;
+        if (channel instanceof Channel && ((Channel) channel).isClosingOrClosed()) return;
+        synchronized (HOSTS) {
+            HOSTS.computeIfAbsent(
+                            channel, k -> new EnumMap<HostnameResolver.Source, String>(HostnameResolver.Source.class))
+                    .put(source, resolved.getName());
+        }
+    }
+
+    static void forget(VirtualChannel channel) {
+        synchronized (HOSTS) {
+            if (channel != null) HOSTS.remove(channel);
+            for (Iterator<VirtualChannel> it = HOSTS.keySet().iterator(); it.hasNext(); ) {
+                VirtualChannel key = it.next();
+                if (key instanceof Channel && ((Channel) key).isClosingOrClosed()) it.remove();
+            }
+        }
+    }
+
+    @Extension
+    public static final class Listener extends ComputerListener {
+
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            final VirtualChannel channel = c.getChannel();
+            if (channel == null) return;
+            forget(channel);
+            // do not hold up the agent launch for a DNS lookup
+            Computer.threadPoolForRemoting.submit(() -> {
+                try {
+                    HostnameResolver resolver = new HostnameResolver(HostnameResolver.Source.DNS);
+                    put(
+                            channel,
+                            resolver.getPreferred(),
+                            channel.call(new GetCurrentBuildHost.AgentCallable(resolver)));
+                } catch (Exception e) {
+                    LOGGER.log(Level.FINE, "Could not look up the build host of " + c.getName(), e);
+                }
+            });
+        }
+
+        @Override
+        public void onOffline(Computer c, OfflineCause cause) {
+            forget(c.getChannel());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.netInfo;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.remoting.Callable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import jenkins.security.Roles;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.jenkinsci.remoting.RoleChecker;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+public class GetBuildHostFacts extends Step implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private EnumSet<HostFacts.Field> fields = EnumSet.allOf(HostFacts.Field.class);
+
+    @DataBoundConstructor
+    public GetBuildHostFacts() {}
+
+    public List<String> getFields() {
+        List<String> keys = new ArrayList<String>();
+        for (HostFacts.Field field : fields) {
+            keys.add(field.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * Only these facts are computed: hostname, fqdn, addresses, primaryIp and containerId, all of them by default.
+     */
+    @DataBoundSetter
+    public void setFields(List<String> fields) {
+        EnumSet<HostFacts.Field> selected = EnumSet.noneOf(HostFacts.Field.class);
+        if (fields != null) {
+            for (String key : fields) {
+                if (key == null || key.equals("")) continue;
+                selected.add(HostFacts.Field.fromKey(key));
+            }
+        }
+        this.fields = selected.isEmpty() ? EnumSet.allOf(HostFacts.Field.class) : selected;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new StepExecutionImpl(this, context);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "getBuildHostFacts";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Get network and host facts of the Build Host in context";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.emptySet();
+        }
+    }
+
+    private static class StepExecutionImpl extends SynchronousNonBlockingStepExecution<HashMap<String, Object>> {
+
+        private static final long serialVersionUID = GetBuildHostFacts.serialVersionUID;
+        private final EnumSet<HostFacts.Field> fields;
+
+        StepExecutionImpl(GetBuildHostFacts step, StepContext context) {
+            super(context);
+            this.fields = EnumSet.copyOf(step.fields);
+        }
+
+        @Override
+        protected HashMap<String, Object> run() throws Exception {
+            FilePath workspace = getContext().get(FilePath.class);
+            FactsCallable callable = new FactsCallable(fields, HostnameResolver.TIMEOUT);
+            // everything is gathered in one round trip, no matter how many facts were asked for
+            HostFacts facts = workspace == null ? callable.call() : workspace.act(callable);
+            return facts.toMap(fields);
+        }
+    }
+
+    static class FactsCallable implements Callable<HostFacts, IOException>, Serializable {
+        private static final long serialVersionUID = 1L;
+        private final EnumSet<HostFacts.Field> fields;
+        private final long timeoutMillis;
+
+        FactsCallable(EnumSet<HostFacts.Field> fields, long timeoutMillis) {
+            this.fields = fields;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public HostFacts call() throws IOException {
+            return HostFacts.collect(fields, timeoutMillis);
+        }
+
+        @Override
+        public void checkRoles(RoleChecker checker) throws SecurityException {
+            // only reads the host's own names, addresses and cgroup table
+            checker.check(this, Roles.SLAVE);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import hudson.Extension;
 import hudson.FilePath;
 import hudson.model.TaskListener;
 import hudson.remoting.Callable;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics.StepMetrics;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
@@ -16,14 +17,29 @@ import org.jenkinsci.plugins.workflow.steps.StepExecution;
 import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
 import org.jenkinsci.remoting.RoleChecker;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 public class GetCurrentBuildHost extends Step implements Serializable {
 
     private static final long serialVersionUID = 1505586566993544821L;
 
+    private HostnameResolver.Source source = HostnameResolver.Source.DNS;
+
     @DataBoundConstructor
     public GetCurrentBuildHost() {}
 
+    public String getSource() {
+        return source.getKey();
+    }
+
+    /**
+     * Which source wins: dns ( the default ), kernel or env, the others are used as fallbacks.
+     */
+    @DataBoundSetter
+    public void setSource(String source) {
+        this.source = HostnameResolver.Source.fromKey(source);
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
         return new StepExecutionImpl(this, context);
@@ -51,38 +67,49 @@ public class GetCurrentBuildHost extends Step implements Serializable {
     private static class StepExecutionImpl extends SynchronousNonBlockingStepExecution<String> {
 
         private static final long serialVersionUID = GetCurrentBuildHost.serialVersionUID;
+        private final HostnameResolver resolver;
 
         StepExecutionImpl(GetCurrentBuildHost step, StepContext context) {
             super(context);
+            this.resolver = new HostnameResolver(step.source);
         }
 
         @Override
         protected String run() throws Exception {
-            FilePath workspace = getContext().get(FilePath.class);
-            TaskListener listener = getContext().get(TaskListener.class);
-
-            if (workspace == null) {
-                return java.net.InetAddress.getLocalHost().getHostName();
-            }
-            if (listener == null) {
-                return java.net.InetAddress.getLocalHost().getHostName();
+            try (StepMetrics.Sample sample = StepMetrics.begin("getCurrentBuildHost", getContext())) {
+                FilePath workspace = getContext().get(FilePath.class);
+                TaskListener listener = getContext().get(TaskListener.class);
+
+                if (workspace == null) {
+                    return sample.ok(controllerHost());
+                }
+                if (listener == null) {
+                    return sample.ok(controllerHost());
+                }
+                // the host of an agent does not change while it stays connected
+                return sample.ok(BuildHostCache.get(workspace.getChannel(), resolver.getPreferred(), () -> {
+                    sample.roundTrip();
+                    return workspace.act(new AgentCallable(resolver));
+                }));
             }
-            return workspace.act(new AgentCallable(listener));
+        }
+
+        private String controllerHost() throws Exception {
+            return BuildHostCache.get(FilePath.localChannel, resolver.getPreferred(), resolver::resolveWithSource);
         }
     }
 
-    private static class AgentCallable implements Callable<String, IOException>, Serializable {
+    static class AgentCallable implements Callable<HostnameResolver.Resolved, IOException>, Serializable {
         private static final long serialVersionUID = 1L;
-        // private final TaskListener listener;
+        private final HostnameResolver resolver;
 
-        AgentCallable(TaskListener listener) {
-            // this.listener = listener;
+        AgentCallable(HostnameResolver resolver) {
+            this.resolver = resolver;
         }
 
         @Override
-        public String call() throws IOException {
-            // listener.getLogger().println("Executing remotely on the agent.");
-            return java.net.InetAddress.getLocalHost().getHostName();
+        public HostnameResolver.Resolved call() throws IOException {
+            return resolver.resolveWithSource();
         }
 
         @Override
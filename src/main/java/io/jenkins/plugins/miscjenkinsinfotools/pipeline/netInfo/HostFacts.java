@@ -0,0 +1,214 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.netInfo;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.DatagramSocket;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Network and host facts of a build host, gathered inside a single agent callable.
+ * Only the requested fields are computed, a field that was not requested or could not be determined stays null.
+ */
+public final class HostFacts implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Docker, containerd, CRI-O and podman all name the container by a 64 character hex id. */
+    private static final Pattern CGROUP_ID = Pattern.compile("(?:^|[/-])([0-9a-f]{64})(?:\\.scope)?(?:/|$)");
+
+    /** With cgroup v2 the id only shows up in the files the runtime bind mounts, image layers must not match. */
+    private static final Pattern MOUNT_ID = Pattern.compile("/containers/([0-9a-f]{64})/");
+
+    /** Documentation address, connecting a datagram socket to it only asks the kernel for a route, nothing is sent. */
+    private static final byte[] ROUTE_PROBE = {(byte) 192, 0, 2, 1};
+
+    public enum Field {
+        HOSTNAME("hostname"),
+        FQDN("fqdn"),
+        ADDRESSES("addresses"),
+        PRIMARY_IP("primaryIp"),
+        CONTAINER_ID("containerId");
+
+        private final String key;
+
+        Field(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        static Field fromKey(String key) {
+            for (Field field : values()) {
+                if (field.key.equalsIgnoreCase(key)) return field;
+            }
+            throw new IllegalArgumentException(
+                    "Unknown field: " + key + ", expected one of hostname, fqdn, addresses, primaryIp, containerId");
+        }
+    }
+
+    private String hostname;
+    private String fqdn;
+    private ArrayList<String> addresses;
+    private String primaryIp;
+    private String containerId;
+
+    private HostFacts() {}
+
+    /**
+     * Computes the requested facts of the machine this runs on.
+     */
+    static HostFacts collect(Set<Field> fields, long timeoutMillis) {
+        HostFacts facts = new HostFacts();
+        if (fields.contains(Field.HOSTNAME)) {
+            facts.hostname = new HostnameResolver(HostnameResolver.Source.DNS, timeoutMillis).resolve();
+        }
+        if (fields.contains(Field.FQDN)) {
+            facts.fqdn = HostnameResolver.fqdn(timeoutMillis);
+        }
+        if (fields.contains(Field.ADDRESSES) || fields.contains(Field.PRIMARY_IP)) {
+            List<InetAddress> all = interfaceAddresses();
+            if (fields.contains(Field.ADDRESSES)) {
+                facts.addresses = new ArrayList<String>();
+                for (InetAddress address : all) {
+                    facts.addresses.add(format(address));
+                }
+            }
+            if (fields.contains(Field.PRIMARY_IP)) {
+                facts.primaryIp = primaryIp(all);
+            }
+        }
+        if (fields.contains(Field.CONTAINER_ID)) {
+            facts.containerId = containerId();
+        }
+        return facts;
+    }
+
+    public String getHostname() {
+        return hostname;
+    }
+
+    public String getFqdn() {
+        return fqdn;
+    }
+
+    public List<String> getAddresses() {
+        return addresses == null ? null : Collections.unmodifiableList(addresses);
+    }
+
+    public String getPrimaryIp() {
+        return primaryIp;
+    }
+
+    public String getContainerId() {
+        return containerId;
+    }
+
+    /**
+     * @return the requested fields keyed by their step name, in a form a pipeline can keep in its program state
+     */
+    public HashMap<String, Object> toMap(Set<Field> fields) {
+        HashMap<String, Object> result = new HashMap<String, Object>();
+        for (Field field : EnumSet.copyOf(fields)) {
+            switch (field) {
+                case HOSTNAME:
+                    result.put(field.getKey(), hostname);
+                    break;
+                case FQDN:
+                    result.put(field.getKey(), fqdn);
+                    break;
+                case ADDRESSES:
+                    result.put(field.getKey(), addresses == null ? null : new ArrayList<String>(addresses));
+                    break;
+                case PRIMARY_IP:
+                    result.put(field.getKey(), primaryIp);
+                    break;
+                default:
+                    result.put(field.getKey(), containerId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Addresses of every interface that is up, loopback excluded.
+     */
+    private static List<InetAddress> interfaceAddresses() {
+        List<InetAddress> result = new ArrayList<InetAddress>();
+        try {
+            Enumeration<NetworkInterface> nics = NetworkInterface.getNetworkInterfaces();
+            if (nics == null) return result;
+            for (NetworkInterface nic : Collections.list(nics)) {
+                if (!nic.isUp() || nic.isLoopback()) continue;
+                for (InterfaceAddress address : nic.getInterfaceAddresses()) {
+                    result.add(address.getAddress());
+                }
+            }
+        } catch (SocketException e) {
+            // no interfaces could be listed, report none
+        }
+        return result;
+    }
+
+    /**
+     * The source address the kernel would pick for outbound traffic, or the first IPv4 interface address.
+     */
+    private static String primaryIp(List<InetAddress> all) {
+        try (DatagramSocket socket = new DatagramSocket()) {
+            socket.connect(InetAddress.getByAddress(ROUTE_PROBE), 9);
+            InetAddress local = socket.getLocalAddress();
+            if (local != null && !local.isAnyLocalAddress()) return format(local);
+        } catch (IOException | RuntimeException e) {
+            // no default route, fall back to the interface list
+        }
+        for (InetAddress address : all) {
+            if (address instanceof Inet4Address) return format(address);
+        }
+        return all.isEmpty() ? null : format(all.get(0));
+    }
+
+    /**
+     * The id of the container this runs in, read from the cgroup and mount tables, null outside of a container.
+     */
+    static String containerId() {
+        String id = find(Paths.get("/proc/self/cgroup"), CGROUP_ID);
+        return id != null ? id : find(Paths.get("/proc/self/mountinfo"), MOUNT_ID);
+    }
+
+    private static String find(Path path, Pattern pattern) {
+        if (!Files.isReadable(path)) return null;
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                Matcher matcher = pattern.matcher(line);
+                if (matcher.find()) return matcher.group(1);
+            }
+        } catch (IOException e) {
+            // treat an unreadable table like a missing one
+        }
+        return null;
+    }
+
+    private static String format(InetAddress address) {
+        String text = address.getHostAddress();
+        int scope = text.indexOf('%');
+        return scope < 0 ? text : text.substring(0, scope);
+    }
+}
@@ -0,0 +1,195 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.netInfo;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import jenkins.util.SystemProperties;
+
+/**
+ * Works out the name of the machine it runs on, on the controller or inside an agent callable, without ever waiting
+ * on an unbounded DNS timeout.
+ * The preferred source is tried first and the others follow in the order kernel hostname, HOSTNAME environment
+ * variable, DNS.  The DNS lookup runs on its own daemon thread and is given up on after the timeout, which can be
+ * changed on the controller with the system property {@code <class name>.timeout} ( milliseconds ).
+ */
+public final class HostnameResolver implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final long TIMEOUT = SystemProperties.getLong(HostnameResolver.class.getName() + ".timeout", 5000L);
+
+    /** One lookup thread per JVM, a lookup that is still hanging is joined instead of starting another one. */
+    private static final ExecutorService DNS = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "misc-info-tools hostname lookup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, Future<String>> PENDING = new HashMap<String, Future<String>>();
+
+    public enum Source {
+        DNS("dns"),
+        KERNEL("kernel"),
+        ENV("env");
+
+        private final String key;
+
+        Source(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        static Source fromKey(String key) {
+            if (key == null || key.equals("")) return DNS;
+            for (Source source : values()) {
+                if (source.key.equalsIgnoreCase(key)) return source;
+            }
+            throw new IllegalArgumentException("Unknown source: " + key + ", expected one of dns, kernel, env");
+        }
+    }
+
+    /**
+     * A host name and the source that came up with it, no source for the "localhost" last resort.
+     */
+    public static final class Resolved implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final Source source;
+
+        Resolved(String name, Source source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+    }
+
+    private final Source preferred;
+    private final long timeoutMillis;
+
+    HostnameResolver(Source preferred) {
+        this(preferred, TIMEOUT);
+    }
+
+    HostnameResolver(Source preferred, long timeoutMillis) {
+        this.preferred = preferred;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public Source getPreferred() {
+        return preferred;
+    }
+
+    /**
+     * @return the first name any of the sources came up with, "localhost" when none of them did
+     */
+    public String resolve() {
+        return resolveWithSource().getName();
+    }
+
+    /**
+     * Same as {@link #resolve()}, but also tells which source the name came from.
+     */
+    public Resolved resolveWithSource() {
+        for (Source source : order()) {
+            String name = lookup(source);
+            if (name != null && !name.isEmpty()) return new Resolved(name, source);
+        }
+        return new Resolved("localhost", null);
+    }
+
+    private List<Source> order() {
+        List<Source> order = new ArrayList<Source>();
+        order.add(preferred);
+        for (Source source : new Source[] {Source.KERNEL, Source.ENV, Source.DNS}) {
+            if (source != preferred) order.add(source);
+        }
+        return order;
+    }
+
+    private String lookup(Source source) {
+        switch (source) {
+            case KERNEL:
+                return kernel();
+            case ENV:
+                return env();
+            default:
+                return dns(timeoutMillis);
+        }
+    }
+
+    static String kernel() {
+        for (String file : new String[] {"/proc/sys/kernel/hostname", "/etc/hostname"}) {
+            Path path = Paths.get(file);
+            if (!Files.isReadable(path)) continue;
+            try {
+                String name = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+                if (!name.isEmpty()) return name;
+            } catch (IOException e) {
+                // try the next file
+            }
+        }
+        return null;
+    }
+
+    static String env() {
+        String name = System.getenv("HOSTNAME");
+        if (name == null || name.trim().isEmpty()) name = System.getenv("COMPUTERNAME");
+        return name == null ? null : name.trim();
+    }
+
+    static String dns(long timeoutMillis) {
+        return timed("dns", () -> InetAddress.getLocalHost().getHostName(), timeoutMillis);
+    }
+
+    /**
+     * @return the fully qualified name of the host, null when DNS did not answer in time
+     */
+    static String fqdn(long timeoutMillis) {
+        return timed("fqdn", () -> InetAddress.getLocalHost().getCanonicalHostName(), timeoutMillis);
+    }
+
+    private static String timed(String kind, java.util.concurrent.Callable<String> lookup, long timeoutMillis) {
+        Future<String> future;
+        synchronized (PENDING) {
+            future = PENDING.get(kind);
+            if (future == null || future.isDone()) {
+                future = DNS.submit(lookup);
+                PENDING.put(kind, future);
+            }
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+}
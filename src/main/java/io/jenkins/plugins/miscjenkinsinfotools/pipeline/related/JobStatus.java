@@ -0,0 +1,95 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related;
+
+import hudson.model.Result;
+
+/**
+ * Immutable snapshot of what the plugin's steps need to know about a job, taken from {@link JobStatusCache}.
+ * Build numbers are 0 when there is no such build.
+ */
+public final class JobStatus {
+
+    private final int lastBuildNumber;
+    private final boolean building;
+    private final boolean queued;
+    private final int lastCompletedNumber;
+    private final Result lastCompletedResult;
+    private final long lastCompletedTime;
+    private final int lastSuccessfulNumber;
+    private final int lastStableNumber;
+    private final int lastFailedNumber;
+
+    JobStatus(
+            int lastBuildNumber,
+            boolean building,
+            boolean queued,
+            int lastCompletedNumber,
+            Result lastCompletedResult,
+            long lastCompletedTime,
+            int lastSuccessfulNumber,
+            int lastStableNumber,
+            int lastFailedNumber) {
+        this.lastBuildNumber = lastBuildNumber;
+        this.building = building;
+        this.queued = queued;
+        this.lastCompletedNumber = lastCompletedNumber;
+        this.lastCompletedResult = lastCompletedResult;
+        this.lastCompletedTime = lastCompletedTime;
+        this.lastSuccessfulNumber = lastSuccessfulNumber;
+        this.lastStableNumber = lastStableNumber;
+        this.lastFailedNumber = lastFailedNumber;
+    }
+
+    public int getLastBuildNumber() {
+        return lastBuildNumber;
+    }
+
+    /**
+     * Same meaning as {@link hudson.model.Job#isBuilding()}: the newest build is still running.
+     */
+    public boolean isBuilding() {
+        return building;
+    }
+
+    public boolean isQueued() {
+        return queued;
+    }
+
+    public int getLastCompletedNumber() {
+        return lastCompletedNumber;
+    }
+
+    /**
+     * @return result of the last completed build, null when the job never completed a build
+     */
+    public Result getLastCompletedResult() {
+        return lastCompletedResult;
+    }
+
+    /**
+     * @return time the last completed build finished in milliseconds, 0 when the job never completed a build
+     */
+    public long getLastCompletedTime() {
+        return lastCompletedTime;
+    }
+
+    /**
+     * Same meaning as {@link hudson.model.Job#getLastSuccessfulBuild()}, so unstable builds count as successful.
+     */
+    public int getLastSuccessfulNumber() {
+        return lastSuccessfulNumber;
+    }
+
+    /**
+     * Same meaning as {@link hudson.model.Job#getLastStableBuild()}.
+     */
+    public int getLastStableNumber() {
+        return lastStableNumber;
+    }
+
+    /**
+     * Same meaning as {@link hudson.model.Job#getLastFailedBuild()}.
+     */
+    public int getLastFailedNumber() {
+        return lastFailedNumber;
+    }
+}
@@ -0,0 +1,231 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.queue.QueueListener;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jenkins.model.Jenkins;
+
+/**
+ * Compact, in memory status record per job, so the steps can answer "is it building, is it queued, what was the last
+ * completed, successful, stable or failed build" in constant time without loading build records from disk.
+ * A record is read from the job the first time it is asked for, after that it is kept current by {@link RunListener}
+ * and {@link QueueListener} events.  Deleting a build, or deleting or moving the job, drops the record so it is read
+ * again on next use.
+ */
+public final class JobStatusCache {
+
+    private static final ConcurrentHashMap<String, Record> RECORDS = new ConcurrentHashMap<String, Record>();
+
+    private JobStatusCache() {}
+
+    public static JobStatus get(Job<?, ?> job) {
+        Record record = RECORDS.computeIfAbsent(job.getFullName(), k -> new Record());
+        return record.snapshot(job);
+    }
+
+    static void invalidate(String fullName) {
+        RECORDS.remove(fullName);
+        String prefix = fullName + "/";
+        RECORDS.keySet().removeIf(name -> name.startsWith(prefix));
+    }
+
+    /**
+     * {@link Run#getTimeInMillis()} is when the build was scheduled, a long build that finished last would sort behind
+     * a short one scheduled after it.
+     */
+    private static long finishedAt(Run<?, ?> run) {
+        return run.getStartTimeInMillis() + run.getDuration();
+    }
+
+    private static Record existing(Object task) {
+        if (!(task instanceof Job)) return null;
+        return RECORDS.get(((Job<?, ?>) task).getFullName());
+    }
+
+    private static final class Record {
+
+        private boolean loaded;
+        private int lastBuildNumber;
+        private boolean building;
+        private final Set<Long> queueIds = new HashSet<Long>();
+        private int lastCompletedNumber;
+        private Result lastCompletedResult;
+        private long lastCompletedTime;
+        private int lastSuccessfulNumber;
+        private int lastStableNumber;
+        private int lastFailedNumber;
+
+        synchronized JobStatus snapshot(Job<?, ?> job) {
+            if (!loaded) load(job);
+            return new JobStatus(
+                    lastBuildNumber,
+                    building,
+                    isQueued(),
+                    lastCompletedNumber,
+                    lastCompletedResult,
+                    lastCompletedTime,
+                    lastSuccessfulNumber,
+                    lastStableNumber,
+                    lastFailedNumber);
+        }
+
+        /**
+         * The one time cost, later updates come from events.
+         */
+        private void load(Job<?, ?> job) {
+            Run<?, ?> last = job.getLastBuild();
+            lastBuildNumber = last == null ? 0 : last.getNumber();
+            building = last != null && last.isBuilding();
+            Run<?, ?> completed = job.getLastCompletedBuild();
+            if (completed != null) {
+                lastCompletedNumber = completed.getNumber();
+                lastCompletedResult = completed.getResult();
+                lastCompletedTime = finishedAt(completed);
+            }
+            Run<?, ?> successful = job.getLastSuccessfulBuild();
+            lastSuccessfulNumber = successful == null ? 0 : successful.getNumber();
+            Run<?, ?> stable = job.getLastStableBuild();
+            lastStableNumber = stable == null ? 0 : stable.getNumber();
+            Run<?, ?> failed = job.getLastFailedBuild();
+            lastFailedNumber = failed == null ? 0 : failed.getNumber();
+            if (job instanceof Queue.Task) {
+                for (Queue.Item item : Jenkins.get().getQueue().getItems((Queue.Task) job)) {
+                    queueIds.add(item.getId());
+                }
+            }
+            loaded = true;
+        }
+
+        /**
+         * An id is only dropped once the queue confirms the item left.  The queue snapshot is refreshed after
+         * onEnterWaiting fired, so an item that was just added is not found yet and still counts as queued.
+         */
+        private boolean isQueued() {
+            if (queueIds.isEmpty()) return false;
+            Queue queue = Jenkins.get().getQueue();
+            for (Iterator<Long> it = queueIds.iterator(); it.hasNext(); ) {
+                if (queue.getItem(it.next()) instanceof Queue.LeftItem) it.remove();
+            }
+            return !queueIds.isEmpty();
+        }
+
+        synchronized void started(Run<?, ?> run) {
+            if (!loaded) return;
+            if (run.getNumber() >= lastBuildNumber) {
+                lastBuildNumber = run.getNumber();
+                building = true;
+            }
+        }
+
+        synchronized void finalized(Run<?, ?> run) {
+            if (!loaded) return;
+            int number = run.getNumber();
+            if (number == lastBuildNumber) building = false;
+            if (number > lastCompletedNumber) {
+                lastCompletedNumber = number;
+                lastCompletedResult = run.getResult();
+                lastCompletedTime = finishedAt(run);
+            }
+            Result result = run.getResult();
+            if (result == null) return;
+            if (result.isBetterOrEqualTo(Result.UNSTABLE) && number > lastSuccessfulNumber) {
+                lastSuccessfulNumber = number;
+            }
+            if (result == Result.SUCCESS && number > lastStableNumber) {
+                lastStableNumber = number;
+            }
+            if (result == Result.FAILURE && number > lastFailedNumber) {
+                lastFailedNumber = number;
+            }
+        }
+
+        synchronized void enteredQueue(long id) {
+            if (loaded) queueIds.add(id);
+        }
+
+        synchronized void leftQueue(long id) {
+            queueIds.remove(id);
+        }
+    }
+
+    /**
+     * Updates the records first and only then tells {@link JobWatchRegistry}, so watchers always see the new state.
+     */
+    @Extension
+    public static final class RunStatusListener extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onStarted(Run<?, ?> run, TaskListener listener) {
+            Record record = existing(run.getParent());
+            if (record != null) record.started(run);
+            JobWatchRegistry.fire(run.getParent().getFullName());
+        }
+
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            Record record = existing(run.getParent());
+            if (record != null) record.finalized(run);
+            JobWatchRegistry.fire(run.getParent().getFullName());
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            invalidate(run.getParent().getFullName());
+        }
+    }
+
+    /**
+     * Runs before other queue listeners, so they already see the item as queued.
+     */
+    @Extension(ordinal = 100)
+    public static final class QueueStatusListener extends QueueListener {
+
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem item) {
+            Record record = existing(item.task);
+            if (record != null) record.enteredQueue(item.getId());
+            if (item.task instanceof Item) JobWatchRegistry.fire(((Item) item.task).getFullName());
+        }
+
+        @Override
+        public void onLeft(Queue.LeftItem item) {
+            Record record = existing(item.task);
+            if (record != null) record.leftQueue(item.getId());
+            // an item that is about to start looks idle until its build exists, onStarted covers that case
+            if (item.isCancelled() && item.task instanceof Item) {
+                JobWatchRegistry.fire(((Item) item.task).getFullName());
+            }
+        }
+    }
+
+    @Extension
+    public static final class ItemStatusListener extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            // jobs were (re)loaded from disk, none of the records can be trusted anymore
+            RECORDS.clear();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            invalidate(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            invalidate(oldFullName);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.Timer;
+
+/**
+ * Lets step executions wait for related jobs without polling them.
+ * A {@link Watcher} registers the job paths it cares about and is called back whenever a build of one of them starts
+ * or finishes, or the job enters or leaves the queue.  The events are fired by {@link JobStatusCache} once it has
+ * updated its records.  Callbacks run on the {@link Timer} pool, never on the thread that fired the event, so they
+ * are free to look at the job and the queue.
+ */
+public final class JobWatchRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(JobWatchRegistry.class.getName());
+
+    private static final ConcurrentHashMap<String, Set<Watcher>> WATCHERS =
+            new ConcurrentHashMap<String, Set<Watcher>>();
+
+    private JobWatchRegistry() {}
+
+    public interface Watcher {
+        void jobChanged(String fullName);
+    }
+
+    public static void watch(Watcher watcher, Collection<String> jobs) {
+        for (String job : jobs) {
+            WATCHERS.computeIfAbsent(job, k -> ConcurrentHashMap.newKeySet()).add(watcher);
+        }
+    }
+
+    public static void unwatch(Watcher watcher, Collection<String> jobs) {
+        for (String job : jobs) {
+            WATCHERS.computeIfPresent(job, (k, set) -> {
+                set.remove(watcher);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    public static void fire(String fullName) {
+        Set<Watcher> set = WATCHERS.get(fullName);
+        if (set == null) return;
+        for (Watcher watcher : set.toArray(new Watcher[0])) {
+            Timer.get().submit(() -> {
+                try {
+                    watcher.jobChanged(fullName);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to notify a watcher of " + fullName, e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.model.AbstractProject;
+import hudson.model.DependencyGraph;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.triggers.Trigger;
+import hudson.triggers.TriggerDescriptor;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+import jenkins.triggers.ReverseBuildTrigger;
+
+/**
+ * Transitive upstream jobs of every job asked for, so checking a long dependency chain costs a single map lookup once
+ * the chain has been walked.
+ * Upstream edges come from the {@link DependencyGraph} for freestyle style projects, and from the
+ * {@link ReverseBuildTrigger} ( "build after other projects are built" ) of any job that has triggers, which is how
+ * pipeline jobs declare them.  Everything is dropped when Jenkins rebuilds the dependency graph, when a job that some
+ * closure went through or was asked for is moved or deleted, when a job some walked trigger names is created or moved,
+ * or when a walked job is saved with different upstream projects in its trigger.  Jobs no closure knows about, such
+ * as the branch jobs multibranch indexing keeps creating, saving and deleting, leave the closures alone.
+ * Closures are computed as the system user and hold every job, callers must hide what the current user can not see.
+ */
+public final class UpstreamClosureCache {
+
+    private static final ConcurrentHashMap<String, List<String>> CLOSURES =
+            new ConcurrentHashMap<String, List<String>>();
+    /** Upstream projects of the trigger of every job a cached closure went through, as last seen by a walk. */
+    private static final ConcurrentHashMap<String, String> TRIGGERS = new ConcurrentHashMap<String, String>();
+    private static final AtomicLong GENERATION = new AtomicLong();
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static volatile WeakReference<DependencyGraph> graph = new WeakReference<DependencyGraph>(null);
+
+    private UpstreamClosureCache() {}
+
+    /**
+     * @return the full names of every job upstream of the given one, nearest first, empty when there is no such job
+     */
+    public static List<String> upstreamOf(String fullName) {
+        Jenkins server = Jenkins.getInstanceOrNull();
+        if (server == null) return Collections.emptyList();
+        DependencyGraph current = server.getDependencyGraph();
+        if (graph.get() != current) {
+            synchronized (UpstreamClosureCache.class) {
+                if (graph.get() != current) {
+                    invalidate();
+                    graph = new WeakReference<DependencyGraph>(current);
+                }
+            }
+        }
+        List<String> closure = CLOSURES.get(fullName);
+        if (closure != null) {
+            HITS.incrementAndGet();
+            return closure;
+        }
+        MISSES.incrementAndGet();
+        long generation = GENERATION.get();
+        try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+            closure = Collections.unmodifiableList(walk(server, current, fullName));
+        }
+        // a job that changed during the walk may have made it stale, so only keep it when nothing did
+        if (GENERATION.get() == generation) CLOSURES.put(fullName, closure);
+        return closure;
+    }
+
+    /**
+     * Adds the transitive upstream jobs of every dep the current user can see to the deps, the deps keep their order
+     * and come first, upstream jobs the current user can not see are left out.
+     */
+    public static ArrayList<String> expand(List<String> deps) {
+        LinkedHashSet<String> result = new LinkedHashSet<String>(deps);
+        Jenkins server = Jenkins.getInstanceOrNull();
+        if (server == null) return new ArrayList<String>(result);
+        boolean system = ACL.SYSTEM2.equals(Jenkins.getAuthentication2());
+        for (String dep : deps) {
+            if (!system && server.getItemByFullName(dep, Job.class) == null) continue;
+            for (String upstream : upstreamOf(dep)) {
+                if (result.contains(upstream)) continue;
+                if (!system && server.getItemByFullName(upstream, Job.class) == null) continue;
+                result.add(upstream);
+            }
+        }
+        return new ArrayList<String>(result);
+    }
+
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    static void invalidate() {
+        GENERATION.incrementAndGet();
+        CLOSURES.clear();
+        TRIGGERS.clear();
+    }
+
+    /**
+     * Drops the closures when a changed item can affect them.  Otherwise only walks in flight are kept from being
+     * cached, they may have looked at the item before the change.
+     */
+    private static void changed(boolean affected) {
+        if (affected) {
+            invalidate();
+        } else {
+            GENERATION.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return true when a walk went through the job, or one inside the folder, with that full name, or it was asked for
+     */
+    private static boolean known(String fullName) {
+        return hasNameOrChild(TRIGGERS.keySet(), fullName) || hasNameOrChild(CLOSURES.keySet(), fullName);
+    }
+
+    private static boolean hasNameOrChild(Set<String> names, String fullName) {
+        String prefix = fullName + "/";
+        for (String name : names) {
+            if (name.equals(fullName) || name.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true when a walked trigger names the item, or a job inside it.  Trigger names are relative to the folder
+     * of their job, so only the last path segment is compared, which at worst drops the closures once too often.
+     */
+    private static boolean named(Item item) {
+        Set<String> names = new HashSet<String>();
+        names.add(item.getName());
+        if (item instanceof ItemGroup) {
+            for (Job<?, ?> job : Items.allItems2(ACL.SYSTEM2, (ItemGroup<?>) item, Job.class)) {
+                names.add(job.getName());
+            }
+        }
+        for (String upstream : TRIGGERS.values()) {
+            for (String token : upstream.split(",")) {
+                String name = token.trim();
+                if (names.contains(name.substring(name.lastIndexOf('/') + 1))) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Breadth first, so nearer jobs come first, a job reached twice or a cycle is only listed once.
+     */
+    private static List<String> walk(Jenkins server, DependencyGraph graph, String fullName) {
+        List<String> result = new ArrayList<String>();
+        Job<?, ?> start = server.getItemByFullName(fullName, Job.class);
+        if (start == null) return result;
+        HashSet<String> seen = new HashSet<String>();
+        seen.add(start.getFullName());
+        ArrayDeque<Job<?, ?>> pending = new ArrayDeque<Job<?, ?>>();
+        pending.add(start);
+        while (!pending.isEmpty()) {
+            for (Job<?, ?> upstream : directUpstream(graph, pending.removeFirst())) {
+                if (!seen.add(upstream.getFullName())) continue;
+                result.add(upstream.getFullName());
+                pending.addLast(upstream);
+            }
+        }
+        return result;
+    }
+
+    private static List<Job<?, ?>> directUpstream(DependencyGraph graph, Job<?, ?> job) {
+        List<Job<?, ?>> result = new ArrayList<Job<?, ?>>();
+        if (job instanceof AbstractProject) {
+            for (AbstractProject<?, ?> upstream : graph.getUpstream((AbstractProject<?, ?>) job)) {
+                result.add(upstream);
+            }
+        }
+        String names = triggerUpstream(job);
+        TRIGGERS.put(job.getFullName(), names);
+        // the names are relative to the folder of the job that declares the trigger
+        for (Job<?, ?> upstream : Items.fromNameList(job.getParent(), names, Job.class)) {
+            result.add(upstream);
+        }
+        return result;
+    }
+
+    /**
+     * @return the upstream projects of the "build after other projects are built" trigger, empty without one
+     */
+    private static String triggerUpstream(Job<?, ?> job) {
+        if (!(job instanceof ParameterizedJobMixIn.ParameterizedJob)) return "";
+        Map<TriggerDescriptor, Trigger<?>> triggers =
+                ((ParameterizedJobMixIn.ParameterizedJob<?, ?>) job).getTriggers();
+        for (Trigger<?> trigger : triggers.values()) {
+            if (trigger instanceof ReverseBuildTrigger) {
+                return Util.fixNull(((ReverseBuildTrigger) trigger).getUpstreamProjects());
+            }
+        }
+        return "";
+    }
+
+    @Extension
+    public static final class ItemChanges extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            invalidate();
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            changed(known(item.getFullName()) || named(item));
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            changed(known(item.getFullName()));
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            changed(known(oldFullName) || known(newFullName) || named(item));
+        }
+    }
+
+    /**
+     * Triggers changed through the API are only saved, no item event is fired for them.  Freestyle projects rebuild the
+     * dependency graph on a configuration change, which {@link #upstreamOf} notices, so only the trigger is compared.
+     */
+    @Extension
+    public static final class JobSaves extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (!(o instanceof Job)) return;
+            Job<?, ?> job = (Job<?, ?>) o;
+            String known = TRIGGERS.get(job.getFullName());
+            if (known == null) {
+                // no cached closure went through the job, but a walk in flight may have read its old trigger
+                GENERATION.incrementAndGet();
+            } else if (!known.equals(triggerUpstream(job))) {
+                invalidate();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.buildnumber;
+
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobStatus;
+
+/**
+ * Which build of a job a build number lookup refers to.
+ */
+public enum BuildKind {
+    LAST_SUCCESSFUL("lastSuccessful"),
+    LAST_STABLE("lastStable"),
+    LAST_COMPLETED("lastCompleted"),
+    LAST_FAILED("lastFailed");
+
+    private final String key;
+
+    BuildKind(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the build number, 0 when the job has no such build
+     */
+    public int numberOf(JobStatus status) {
+        switch (this) {
+            case LAST_STABLE:
+                return status.getLastStableNumber();
+            case LAST_COMPLETED:
+                return status.getLastCompletedNumber();
+            case LAST_FAILED:
+                return status.getLastFailedNumber();
+            default:
+                return status.getLastSuccessfulNumber();
+        }
+    }
+
+    static BuildKind fromKey(String key) {
+        if (key == null || key.equals("")) return LAST_SUCCESSFUL;
+        for (BuildKind kind : values()) {
+            if (kind.key.equalsIgnoreCase(key)) return kind;
+        }
+        throw new IllegalArgumentException(
+                "Unknown kind: " + key + ", expected one of lastSuccessful, lastStable, lastCompleted, lastFailed");
+    }
+}
@@ -2,7 +2,9 @@ package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.buildnumber;
 
 import hudson.Extension;
 import hudson.model.Job;
-import hudson.model.Run;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.PooledStepExecution;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics.StepMetrics;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobStatusCache;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.Set;
@@ -11,7 +13,6 @@ import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
-import org.jenkinsci.plugins.workflow.steps.SynchronousStepExecution;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
@@ -39,11 +40,11 @@ public class GetJobBuildNumber extends Step implements Serializable {
         Jenkins server = Jenkins.getInstanceOrNull();
         if (server == null) return null;
         if (job == null) return null;
-        Job<?, ?> build = (Job<?, ?>) server.getItemByFullName(job);
+        Job<?, ?> build = server.getItemByFullName(job, Job.class);
         if (build == null) return null;
-        Run<?, ?> lastBuild = build.getLastSuccessfulBuild();
-        if (lastBuild == null) return null;
-        return lastBuild.getNumber();
+        int number = JobStatusCache.get(build).getLastSuccessfulNumber();
+        if (number == 0) return null;
+        return number;
     }
 
     @Override
@@ -70,7 +71,7 @@ public class GetJobBuildNumber extends Step implements Serializable {
         }
     }
 
-    private static class StepExecutionImpl extends SynchronousStepExecution<Integer> {
+    private static class StepExecutionImpl extends PooledStepExecution<Integer> {
 
         private static final long serialVersionUID = GetJobBuildNumber.serialVersionUID;
         private final GetJobBuildNumber step;
@@ -82,7 +83,11 @@ public class GetJobBuildNumber extends Step implements Serializable {
 
         @Override
         protected Integer run() throws Exception {
-            return step.getBuildNumber();
+            try (StepMetrics.Sample sample = StepMetrics.begin("getLastSuccessfulBuildNumber", getContext())) {
+                Integer number = step.getBuildNumber();
+                sample.scanned(1).size(number == null ? 0 : 1);
+                return sample.ok(number);
+            }
         }
     }
 }
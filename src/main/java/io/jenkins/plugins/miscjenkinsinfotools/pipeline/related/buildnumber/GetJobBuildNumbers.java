@@ -0,0 +1,110 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.buildnumber;
+
+import hudson.Extension;
+import hudson.model.Job;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.PooledStepExecution;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobStatusCache;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Batch form of {@link GetJobBuildNumber}: looks up the build numbers of many jobs in a single step call.
+ */
+public class GetJobBuildNumbers extends Step implements Serializable {
+
+    private static final long serialVersionUID = -6512380953411570254L;
+
+    private ArrayList<String> jobs;
+    private BuildKind kind = BuildKind.LAST_SUCCESSFUL;
+
+    @DataBoundConstructor
+    public GetJobBuildNumbers(ArrayList<String> jobs) {
+        this.setJobs(jobs);
+    }
+
+    @DataBoundSetter
+    public void setJobs(ArrayList<String> jobs) {
+        if (jobs == null) throw new NullPointerException();
+        this.jobs = jobs;
+    }
+
+    public ArrayList<String> getJobs() {
+        return this.jobs;
+    }
+
+    /**
+     * One of lastSuccessful ( the default ), lastStable, lastCompleted or lastFailed.
+     */
+    @DataBoundSetter
+    public void setKind(String kind) {
+        this.kind = BuildKind.fromKey(kind);
+    }
+
+    public String getKind() {
+        return kind.getKey();
+    }
+
+    private LinkedHashMap<String, Integer> getBuildNumbers() throws InterruptedException {
+        LinkedHashMap<String, Integer> result = new LinkedHashMap<String, Integer>();
+        Jenkins server = Jenkins.getInstanceOrNull();
+        if (server == null) return result;
+        for (String name : jobs) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            Job<?, ?> job = server.getItemByFullName(name, Job.class);
+            int number = job == null ? 0 : kind.numberOf(JobStatusCache.get(job));
+            // same as getLastSuccessfulBuildNumber: null when the job or the build does not exist
+            result.put(name, number == 0 ? null : number);
+        }
+        return result;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new StepExecutionImpl(this, context);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "getLastBuildNumbers";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Job build numbers getter";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.emptySet();
+        }
+    }
+
+    private static class StepExecutionImpl extends PooledStepExecution<LinkedHashMap<String, Integer>> {
+
+        private static final long serialVersionUID = GetJobBuildNumbers.serialVersionUID;
+        private final GetJobBuildNumbers step;
+
+        StepExecutionImpl(GetJobBuildNumbers step, StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        protected LinkedHashMap<String, Integer> run() throws Exception {
+            return step.getBuildNumbers();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.buildnumber;
+
+import hudson.Extension;
+import hudson.model.TaskListener;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Blocks the pipeline until a job has a build newer than a given number, without polling.
+ * The build number that satisfied the wait is returned.
+ */
+public class WaitForBuildNumber extends Step implements Serializable {
+
+    private static final long serialVersionUID = 4179936108733455120L;
+
+    private String job;
+    private int newerThan = 0;
+    private BuildKind kind = BuildKind.LAST_SUCCESSFUL;
+    private int timeout = 0;
+
+    @DataBoundConstructor
+    public WaitForBuildNumber(String job) {
+        this.setJob(job);
+    }
+
+    @DataBoundSetter
+    public void setJob(String job) {
+        if (job == null) throw new NullPointerException();
+        this.job = job;
+    }
+
+    public String getJob() {
+        return this.job;
+    }
+
+    public int getNewerThan() {
+        return newerThan;
+    }
+
+    /**
+     * The wait is over once the build number is greater than this.
+     */
+    @DataBoundSetter
+    public void setNewerThan(int newerThan) {
+        this.newerThan = newerThan;
+    }
+
+    /**
+     * One of lastSuccessful ( the default ), lastStable, lastCompleted or lastFailed.
+     */
+    @DataBoundSetter
+    public void setKind(String kind) {
+        this.kind = BuildKind.fromKey(kind);
+    }
+
+    public String getKind() {
+        return kind.getKey();
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Seconds to wait before failing the build, 0 waits until the step is aborted.
+     */
+    @DataBoundSetter
+    public void setTimeout(int timeout) {
+        if (timeout < 0) throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+        this.timeout = timeout;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new WaitForBuildNumberExecution(context, job, newerThan, kind, timeout);
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "waitForBuildNumber";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Wait for a newer job build number";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.singleton(TaskListener.class);
+        }
+    }
+}
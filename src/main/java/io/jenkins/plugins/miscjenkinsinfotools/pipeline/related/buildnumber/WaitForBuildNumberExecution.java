@@ -0,0 +1,152 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.buildnumber;
+
+import hudson.AbortException;
+import hudson.model.Job;
+import hudson.model.TaskListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobStatusCache;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobWatchRegistry;
+import java.util.Collections;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Parks the step and lets {@link JobWatchRegistry} resume it when a build of the watched job starts or finishes.
+ * No thread is held while waiting, the optional timeout is a single scheduled task.  The job is only ever looked at on
+ * a {@link Timer} thread, the first look included, never on the CPS VM thread.
+ */
+public class WaitForBuildNumberExecution extends StepExecution implements JobWatchRegistry.Watcher {
+
+    private static final long serialVersionUID = 1L;
+    private final String job;
+    private final int newerThan;
+    private final BuildKind kind;
+    private final long timeoutMillis;
+    private volatile long deadline;
+
+    private transient ScheduledFuture<?> timeout;
+    private transient boolean done;
+    /** Resolved once per start or resume instead of once per event. */
+    private transient volatile Authentication authentication;
+
+    WaitForBuildNumberExecution(StepContext context, String job, int newerThan, BuildKind kind, int timeout) {
+        super(context);
+        this.job = job;
+        this.newerThan = newerThan;
+        this.kind = kind;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeout);
+    }
+
+    @Override
+    public boolean start() throws Exception {
+        deadline = timeoutMillis == 0 ? 0 : System.currentTimeMillis() + timeoutMillis;
+        getContext()
+                .get(TaskListener.class)
+                .getLogger()
+                .println("Waiting for a " + kind.getKey() + " build of " + job + " newer than #" + newerThan);
+        authentication = getContext().get(FlowExecution.class).getAuthentication2();
+        Timer.get().submit(this::watch);
+        return false;
+    }
+
+    @Override
+    public void onResume() {
+        try {
+            authentication = getContext().get(FlowExecution.class).getAuthentication2();
+        } catch (Exception e) {
+            finish(null, e);
+            return;
+        }
+        Timer.get().submit(this::watch);
+    }
+
+    /**
+     * Registers for events before looking at the job, so a build that finishes in between is not missed.
+     */
+    private void watch() {
+        JobWatchRegistry.watch(this, Collections.singleton(job));
+        synchronized (this) {
+            if (done) {
+                // stopped before the timer got to it
+                JobWatchRegistry.unwatch(this, Collections.singleton(job));
+                return;
+            }
+            if (deadline != 0) {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                timeout = Timer.get().schedule(this::timedOut, remaining, TimeUnit.MILLISECONDS);
+            }
+        }
+        jobChanged(job);
+    }
+
+    @Override
+    public void jobChanged(String fullName) {
+        try {
+            Integer number = lookup();
+            if (number != null) finish(number, null);
+        } catch (Exception e) {
+            finish(null, e);
+        }
+    }
+
+    private void timedOut() {
+        try {
+            Integer number = lookup();
+            if (number != null) {
+                finish(number, null);
+                return;
+            }
+        } catch (Exception e) {
+            finish(null, e);
+            return;
+        }
+        finish(null, new AbortException("Timed out waiting for a " + kind.getKey() + " build of " + job
+                + " newer than #" + newerThan));
+    }
+
+    /**
+     * @return the build number once it is newer than asked for, otherwise null
+     */
+    private Integer lookup() throws Exception {
+        Jenkins server = Jenkins.getInstanceOrNull();
+        if (server == null) return null;
+        // events arrive on a pool thread, so look at the job as the user the build runs as
+        try (ACLContext ctx = ACL.as2(authentication)) {
+            Job<?, ?> item = server.getItemByFullName(job, Job.class);
+            if (item == null) throw new AbortException("Job: " + job + ", does not exist!");
+            int number = kind.numberOf(JobStatusCache.get(item));
+            return number > newerThan ? number : null;
+        }
+    }
+
+    private void finish(Integer number, Throwable cause) {
+        synchronized (this) {
+            if (done) return;
+            done = true;
+            if (timeout != null) timeout.cancel(false);
+        }
+        JobWatchRegistry.unwatch(this, Collections.singleton(job));
+        if (cause != null) {
+            getContext().onFailure(cause);
+        } else {
+            getContext().onSuccess(number);
+        }
+    }
+
+    @Override
+    public void stop(Throwable cause) throws Exception {
+        finish(null, cause);
+    }
+
+    @Override
+    public String getStatus() {
+        return "waiting for a " + kind.getKey() + " build of " + job + " newer than #" + newerThan;
+    }
+}
@@ -0,0 +1,64 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.checker;
+
+import hudson.AbortException;
+import hudson.model.Result;
+import hudson.model.TaskListener;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+
+/**
+ * Turns the statuses of all deps into the outcome of a relatedJobChecks step that evaluated them asynchronously.
+ */
+final class CheckOutcome {
+
+    private CheckOutcome() {}
+
+    /**
+     * Completes the step context.
+     * In fail fast mode the first dep with a problem halts the build just like {@link SanityStep} does, otherwise every
+     * problem is logged first, and with returnStatus the map of job path to status is returned instead.
+     */
+    static void complete(
+            StepContext context,
+            List<String> deps,
+            List<CheckStatus> statuses,
+            boolean failFast,
+            boolean returnStatus) {
+        try {
+            PrintStream logger = context.get(TaskListener.class).getLogger();
+            LinkedHashMap<String, String> report = new LinkedHashMap<String, String>();
+            List<String> failed = new ArrayList<String>();
+            boolean missing = false;
+            for (int i = 0; i < deps.size(); i++) {
+                String jobName = deps.get(i);
+                CheckStatus status = statuses.get(i);
+                report.put(jobName, status.name());
+                if (status == CheckStatus.OK) continue;
+                if (failFast && !returnStatus) {
+                    context.setResult(status.getResult());
+                    context.onFailure(status.toException(jobName));
+                    return;
+                }
+                logger.println(status.describe(jobName));
+                failed.add(jobName);
+                missing |= status == CheckStatus.MISSING;
+            }
+            if (failed.isEmpty()) {
+                logger.println("All requested jobs look good!");
+            } else if (!returnStatus) {
+                String message = failed.size() + " of " + deps.size() + " related jobs failed their checks: "
+                        + String.join(", ", failed);
+                // a missing job is a configuration problem, everything else just means not now
+                context.setResult(missing ? Result.FAILURE : Result.ABORTED);
+                context.onFailure(missing ? new AbortException(message) : new InterruptedException(message));
+                return;
+            }
+            context.onSuccess(returnStatus ? report : null);
+        } catch (Exception e) {
+            context.onFailure(e);
+        }
+    }
+}
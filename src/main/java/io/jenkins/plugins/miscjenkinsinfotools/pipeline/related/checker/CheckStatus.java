@@ -0,0 +1,45 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.checker;
+
+import hudson.AbortException;
+import hudson.model.Result;
+
+/**
+ * Outcome of running the relatedJobChecks checks against a single related job.
+ */
+public enum CheckStatus {
+    OK(Result.SUCCESS, "looks good"),
+    MISSING(Result.FAILURE, "does not exist!"),
+    BUILDING(Result.ABORTED, "is currently building!"),
+    QUEUED(Result.ABORTED, "is currently in queue!"),
+    NEVER_RUN(Result.ABORTED, "has never run!"),
+    NOT_SUCCESS(Result.ABORTED, "is not in state SUCCESS!");
+
+    private final Result result;
+    private final String message;
+
+    CheckStatus(Result result, String message) {
+        this.result = result;
+        this.message = message;
+    }
+
+    /**
+     * @return the result this build gets when a related job is in this state
+     */
+    public Result getResult() {
+        return result;
+    }
+
+    public String describe(String jobName) {
+        return "Job: " + jobName + ", " + message;
+    }
+
+    /**
+     * A missing job fails the build, every other problem aborts it.
+     * The message is the one the fail fast check has always stopped with, full stop after a building job included.
+     */
+    Exception toException(String jobName) {
+        if (result == Result.FAILURE) return new AbortException(describe(jobName));
+        if (this == BUILDING) return new InterruptedException("Job: " + jobName + ". " + message);
+        return new InterruptedException(describe(jobName));
+    }
+}
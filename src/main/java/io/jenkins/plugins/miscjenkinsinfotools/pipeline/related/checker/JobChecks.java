@@ -0,0 +1,46 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.checker;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobStatus;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobStatusCache;
+import java.io.Serializable;
+import jenkins.model.Jenkins;
+
+/**
+ * The checks relatedJobChecks runs against every related job, each one can be turned off on its own.
+ */
+public class JobChecks implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final boolean isBuilding;
+    private final boolean inQueue;
+    private final boolean isSuccess;
+    private final boolean jobExists;
+    private final boolean hasRun;
+
+    JobChecks(boolean isBuilding, boolean inQueue, boolean isSuccess, boolean jobExists, boolean hasRun) {
+        this.isBuilding = isBuilding;
+        this.inQueue = inQueue;
+        this.isSuccess = isSuccess;
+        this.jobExists = jobExists;
+        this.hasRun = hasRun;
+    }
+
+    public CheckStatus check(Jenkins server, String jobName) {
+        Job<?, ?> job = server.getItemByFullName(jobName, Job.class);
+        if (job == null) {
+            // without the jobExists check there is nothing left to look at
+            return jobExists ? CheckStatus.MISSING : CheckStatus.OK;
+        }
+        JobStatus status = JobStatusCache.get(job);
+        if (isBuilding && status.isBuilding()) return CheckStatus.BUILDING;
+        if (inQueue && status.isQueued()) return CheckStatus.QUEUED;
+        if (status.getLastCompletedNumber() == 0) {
+            if (hasRun) return CheckStatus.NEVER_RUN;
+            return isSuccess ? CheckStatus.NOT_SUCCESS : CheckStatus.OK;
+        }
+        if (isSuccess && Result.SUCCESS != status.getLastCompletedResult()) return CheckStatus.NOT_SUCCESS;
+        return CheckStatus.OK;
+    }
+}
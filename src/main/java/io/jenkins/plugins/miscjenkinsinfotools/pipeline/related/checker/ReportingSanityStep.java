@@ -0,0 +1,152 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.checker;
+
+import hudson.model.TaskListener;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.StepThreadPool;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics.StepMetrics;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+
+/**
+ * Runs the related job checks against every dep at once on the plugin's thread pool instead of stopping at the first
+ * problem, so a single build reports every broken related job.
+ * With returnStatus the step result is a map of job path to {@link CheckStatus} name, in the order the deps were given.
+ * No pool thread waits for another one: the last check to finish completes the step.
+ */
+public class ReportingSanityStep extends StepExecution {
+
+    private static final long serialVersionUID = 1L;
+    private final JobChecks checks;
+    private final ArrayList<String> deps;
+    private final boolean transitive;
+    private final boolean returnStatus;
+
+    /** The deps, and their upstream jobs when transitive, once the pool worked them out. */
+    private transient volatile ArrayList<String> checked;
+
+    /** Set by whoever completes the step context first, the checks, a failure or {@link #stop}. */
+    private transient volatile AtomicBoolean completed;
+
+    private transient volatile Future<?> expansion;
+    private transient volatile List<Future<?>> tasks;
+    private transient volatile StepMetrics.Sample sample;
+
+    ReportingSanityStep(
+            StepContext context, JobChecks checks, ArrayList<String> deps, boolean transitive, boolean returnStatus) {
+        super(context);
+        this.checks = checks;
+        this.deps = deps;
+        this.transitive = transitive;
+        this.returnStatus = returnStatus;
+    }
+
+    @Override
+    public boolean start() throws Exception {
+        completed = new AtomicBoolean();
+        final Jenkins server = Jenkins.getInstanceOrNull();
+        if (server == null) {
+            completed.set(true);
+            getContext().onSuccess(returnStatus ? new LinkedHashMap<String, String>() : null);
+            return true;
+        }
+        sample = StepMetrics.begin(SaneRelatedJobChecker.FUNCTION_NAME, getContext());
+        final ExecutorService pool = StepThreadPool.asCurrentUser();
+        expansion = pool.submit(() -> {
+            try {
+                checkAll(server, SaneRelatedJobChecker.checkedJobs(getContext(), deps, transitive), pool);
+            } catch (Throwable t) {
+                fail(t);
+            }
+        });
+        return false;
+    }
+
+    private void checkAll(final Jenkins server, final ArrayList<String> jobs, ExecutorService pool)
+            throws IOException, InterruptedException {
+        checked = jobs;
+        getContext().get(TaskListener.class).getLogger().println("Testing " + jobs.size() + " related jobs");
+        final CheckStatus[] statuses = new CheckStatus[jobs.size()];
+        if (statuses.length == 0) {
+            finish(statuses);
+            return;
+        }
+        final AtomicInteger remaining = new AtomicInteger(statuses.length);
+        List<Future<?>> submitted = new ArrayList<Future<?>>();
+        for (int i = 0; i < statuses.length; i++) {
+            final int index = i;
+            submitted.add(pool.submit(() -> {
+                try {
+                    statuses[index] = checks.check(server, jobs.get(index));
+                    if (remaining.decrementAndGet() == 0) finish(statuses);
+                } catch (Throwable t) {
+                    fail(t);
+                }
+            }));
+        }
+        tasks = submitted;
+        // stop() may have run before the tasks were known
+        if (completed.get()) cancel(submitted);
+    }
+
+    private void finish(CheckStatus[] statuses) {
+        if (!completed.compareAndSet(false, true)) return;
+        closeSample(true);
+        CheckOutcome.complete(getContext(), checked, Arrays.asList(statuses), false, returnStatus);
+    }
+
+    private void fail(Throwable cause) {
+        if (!completed.compareAndSet(false, true)) return;
+        closeSample(false);
+        getContext().onFailure(cause);
+    }
+
+    private void closeSample(boolean ok) {
+        StepMetrics.Sample running = sample;
+        if (running == null) return;
+        List<String> jobs = checked;
+        running.scanned(jobs != null ? jobs.size() : 0);
+        if (ok) {
+            running.size(jobs.size());
+            running.ok(null);
+        }
+        running.close();
+    }
+
+    @Override
+    public void stop(Throwable cause) throws Exception {
+        // claimed before interrupting, so an interrupted check can not complete the step with its own failure
+        boolean first = completed.compareAndSet(false, true);
+        Future<?> expanding = expansion;
+        if (expanding != null) expanding.cancel(true);
+        List<Future<?>> running = tasks;
+        if (running != null) cancel(running);
+        if (!first) return;
+        closeSample(false);
+        getContext().onFailure(cause);
+    }
+
+    private static void cancel(List<Future<?>> running) {
+        for (Future<?> task : running) {
+            task.cancel(true);
+        }
+    }
+
+    @Override
+    public void onResume() {
+        // nothing of the running checks survives a restart, so just check everything again
+        try {
+            start();
+        } catch (Exception e) {
+            getContext().onFailure(e);
+        }
+    }
+}
@@ -7,6 +7,8 @@ package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.checker;
 
 import hudson.Extension;
 import hudson.model.TaskListener;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.UpstreamClosureCache;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -25,6 +27,8 @@ public class SaneRelatedJobChecker extends Step implements Serializable {
 
     private static final long serialVersionUID = -3209060662059512132L;
 
+    static final String FUNCTION_NAME = "relatedJobChecks";
+
     private ArrayList<String> deps;
 
     private boolean isBuilding = true;
@@ -32,6 +36,59 @@ public class SaneRelatedJobChecker extends Step implements Serializable {
     private boolean isSuccess = true;
     private boolean jobExists = true;
     private boolean hasRun = true;
+    private boolean failFast = true;
+    private boolean returnStatus = false;
+    private int waitTimeout = 0;
+    private boolean transitive = false;
+
+    public int getWaitTimeout() {
+        return waitTimeout;
+    }
+
+    /**
+     * Seconds to wait for related jobs that are building or queued before checking them, 0 does not wait at all.
+     */
+    @DataBoundSetter
+    public void setWaitTimeout(int waitTimeout) {
+        if (waitTimeout < 0) throw new IllegalArgumentException("waitTimeout must not be negative: " + waitTimeout);
+        this.waitTimeout = waitTimeout;
+    }
+
+    public boolean getTransitive() {
+        return transitive;
+    }
+
+    /**
+     * When true the upstream jobs of every dep are checked as well, all the way up the chain.
+     */
+    @DataBoundSetter
+    public void setTransitive(boolean transitive) {
+        this.transitive = transitive;
+    }
+
+    public boolean getFailFast() {
+        return failFast;
+    }
+
+    /**
+     * When false every dep is checked in parallel and all of the problems are reported at once.
+     */
+    @DataBoundSetter
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public boolean getReturnStatus() {
+        return returnStatus;
+    }
+
+    /**
+     * When true every dep is checked and the map of job path to status is returned instead of halting the build.
+     */
+    @DataBoundSetter
+    public void setReturnStatus(boolean returnStatus) {
+        this.returnStatus = returnStatus;
+    }
 
     public boolean getHasRun() {
         return hasRun;
@@ -91,7 +148,28 @@ public class SaneRelatedJobChecker extends Step implements Serializable {
 
     @Override
     public StepExecution start(StepContext context) throws Exception {
-        return new SanityStep(context, isBuilding, deps, inQueue, isSuccess, jobExists, hasRun);
+        JobChecks checks = new JobChecks(isBuilding, inQueue, isSuccess, jobExists, hasRun);
+        if (waitTimeout > 0) {
+            return new WaitingSanityStep(context, checks, deps, transitive, waitTimeout, failFast, returnStatus);
+        }
+        if (!failFast || returnStatus) {
+            return new ReportingSanityStep(context, checks, deps, transitive, returnStatus);
+        }
+        return new SanityStep(context, isBuilding, deps, transitive, inQueue, isSuccess, jobExists, hasRun);
+    }
+
+    /**
+     * Adds the upstream jobs of the deps when asked to.  Walking the dependency chain can look at many jobs, so the
+     * executions call this from their own threads as the user the build runs as, never from the CPS VM thread.
+     */
+    static ArrayList<String> checkedJobs(StepContext context, ArrayList<String> deps, boolean transitive)
+            throws IOException, InterruptedException {
+        if (!transitive || deps == null) return deps;
+        ArrayList<String> checked = UpstreamClosureCache.expand(deps);
+        context.get(TaskListener.class)
+                .getLogger()
+                .println("Checking " + checked.size() + " related jobs including their upstream jobs");
+        return checked;
     }
 
     public boolean getIsSuccess() {
@@ -113,7 +191,7 @@ public class SaneRelatedJobChecker extends Step implements Serializable {
 
         @Override
         public String getFunctionName() {
-            return "relatedJobChecks";
+            return FUNCTION_NAME;
         }
 
         @Override
@@ -0,0 +1,264 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.checker;
+
+import hudson.model.TaskListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics.StepMetrics;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobWatchRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Waits for related jobs that are building or queued instead of aborting the build right away.
+ * Nothing polls and no thread is held while waiting: the step parks, and {@link JobWatchRegistry} calls it back when
+ * a watched job starts, finishes or leaves the queue.  Once every dep is idle, or the timeout runs out, the usual
+ * checks decide the outcome.
+ * Every look at the jobs, the first one included, runs on a {@link Timer} thread as the user the build runs as, never
+ * on the CPS VM thread, and never while holding the lock of the step.
+ */
+public class WaitingSanityStep extends StepExecution implements JobWatchRegistry.Watcher {
+
+    private static final long serialVersionUID = 1L;
+    private final JobChecks checks;
+    private final ArrayList<String> deps;
+    private final boolean transitive;
+    private final boolean failFast;
+    private final boolean returnStatus;
+    private final long timeoutMillis;
+    private volatile long deadline;
+    /** The deps, and their upstream jobs when transitive, null until they are worked out. */
+    private volatile ArrayList<String> watched;
+
+    private transient CheckStatus[] statuses;
+    /** Ticket of the evaluation each status came from, so a slow, older evaluation can not overwrite a newer one. */
+    private transient long[] tickets;
+    private transient long nextTicket;
+    /** Resolved once per start or resume instead of once per event. */
+    private transient volatile Authentication authentication;
+    private transient ScheduledFuture<?> timeout;
+    private transient boolean done;
+    /** Only times calls that did not go through a restart, the time spent waiting is included. */
+    private transient StepMetrics.Sample sample;
+
+    WaitingSanityStep(
+            StepContext context,
+            JobChecks checks,
+            ArrayList<String> deps,
+            boolean transitive,
+            int waitTimeout,
+            boolean failFast,
+            boolean returnStatus) {
+        super(context);
+        this.checks = checks;
+        this.deps = deps;
+        this.transitive = transitive;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(waitTimeout);
+        this.failFast = failFast;
+        this.returnStatus = returnStatus;
+    }
+
+    @Override
+    public boolean start() throws Exception {
+        deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (this) {
+            sample = StepMetrics.begin(SaneRelatedJobChecker.FUNCTION_NAME, getContext());
+        }
+        authentication = getContext().get(FlowExecution.class).getAuthentication2();
+        Timer.get().submit(() -> {
+            expand();
+            logWaiting();
+        });
+        return false;
+    }
+
+    @Override
+    public void onResume() {
+        try {
+            authentication = getContext().get(FlowExecution.class).getAuthentication2();
+        } catch (Exception e) {
+            fail(e);
+            return;
+        }
+        Timer.get().submit(watched != null ? this::watch : this::expand);
+    }
+
+    /**
+     * Works out the upstream jobs, when transitive, then starts watching all of them.
+     */
+    private void expand() {
+        try {
+            ArrayList<String> jobs;
+            try (ACLContext ctx = ACL.as2(authentication)) {
+                jobs = SaneRelatedJobChecker.checkedJobs(getContext(), deps, transitive);
+            }
+            synchronized (this) {
+                if (done) return;
+                watched = jobs;
+            }
+            watch();
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    private synchronized void logWaiting() {
+        if (!done) {
+            log("Waiting up to " + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)
+                    + "s for related jobs that are building or queued");
+        }
+    }
+
+    /**
+     * Registers for events before looking at the jobs, so a build that finishes in between is not missed.
+     */
+    private void watch() {
+        JobWatchRegistry.watch(this, watched);
+        long remaining = Math.max(0, deadline - System.currentTimeMillis());
+        synchronized (this) {
+            if (done) {
+                // stopped while the upstream jobs were worked out
+                JobWatchRegistry.unwatch(this, watched);
+                return;
+            }
+            // an event that arrives while the first look is running must not be lost, so the slots exist before it
+            statuses = new CheckStatus[watched.size()];
+            tickets = new long[watched.size()];
+            Arrays.fill(tickets, -1);
+            timeout = Timer.get().schedule(this::recheck, remaining, TimeUnit.MILLISECONDS);
+        }
+        recheck();
+    }
+
+    @Override
+    public void jobChanged(String fullName) {
+        try {
+            long ticket;
+            synchronized (this) {
+                if (done || statuses == null) return;
+                ticket = nextTicket++;
+            }
+            CheckStatus status = evaluate(fullName);
+            synchronized (this) {
+                if (done) return;
+                for (int i = 0; i < statuses.length; i++) {
+                    if (!watched.get(i).equals(fullName) || tickets[i] > ticket) continue;
+                    statuses[i] = status;
+                    tickets[i] = ticket;
+                }
+            }
+            finishIfIdle(false);
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void recheck() {
+        try {
+            long ticket;
+            synchronized (this) {
+                if (done) return;
+                ticket = nextTicket++;
+            }
+            CheckStatus[] fresh = new CheckStatus[watched.size()];
+            for (int i = 0; i < fresh.length; i++) {
+                fresh[i] = evaluate(watched.get(i));
+            }
+            synchronized (this) {
+                if (done) return;
+                for (int i = 0; i < fresh.length; i++) {
+                    if (tickets[i] > ticket) continue;
+                    statuses[i] = fresh[i];
+                    tickets[i] = ticket;
+                }
+            }
+            finishIfIdle(System.currentTimeMillis() >= deadline);
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void finishIfIdle(boolean timedOut) {
+        List<CheckStatus> result;
+        synchronized (this) {
+            if (done || statuses == null) return;
+            if (!timedOut && isBusy()) return;
+            done = true;
+            result = Arrays.asList(statuses.clone());
+            if (timeout != null) timeout.cancel(false);
+            closeSample(true);
+        }
+        JobWatchRegistry.unwatch(this, watched);
+        if (timedOut && isBusy()) {
+            log("Gave up waiting for related jobs after " + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis) + "s");
+        }
+        CheckOutcome.complete(getContext(), watched, result, failFast, returnStatus);
+    }
+
+    private synchronized void closeSample(boolean checked) {
+        if (sample == null) return;
+        sample.scanned(watched != null ? watched.size() : 0);
+        if (checked) {
+            sample.size(watched.size());
+            sample.ok(null);
+        }
+        sample.close();
+    }
+
+    private synchronized boolean isBusy() {
+        for (CheckStatus status : statuses) {
+            // not looked at yet
+            if (status == null) return true;
+            if (status == CheckStatus.BUILDING || status == CheckStatus.QUEUED) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Events arrive on a pool thread, so look at the job as the user the build runs as.
+     */
+    private CheckStatus evaluate(String jobName) {
+        Jenkins server = Jenkins.getInstanceOrNull();
+        if (server == null) return CheckStatus.OK;
+        try (ACLContext ctx = ACL.as2(authentication)) {
+            return checks.check(server, jobName);
+        }
+    }
+
+    private void log(String message) {
+        try {
+            getContext().get(TaskListener.class).getLogger().println(message);
+        } catch (Exception e) {
+            // nothing more useful to do with a message we cannot print
+        }
+    }
+
+    private void fail(Throwable cause) {
+        synchronized (this) {
+            if (done) return;
+            done = true;
+            if (timeout != null) timeout.cancel(false);
+            closeSample(false);
+        }
+        if (watched != null) JobWatchRegistry.unwatch(this, watched);
+        getContext().onFailure(cause);
+    }
+
+    @Override
+    public void stop(Throwable cause) throws Exception {
+        fail(cause);
+    }
+
+    @Override
+    public String getStatus() {
+        return "waiting for related jobs to finish building";
+    }
+}
@@ -2,17 +2,33 @@ package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator;
 
 import hudson.Extension;
 import hudson.model.Job;
+import hudson.security.ACL;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.PooledStepExecution;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.StepThreadPool;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.handle.ListHandle;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.handle.ResultStore;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics.StepMetrics;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobStatus;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobStatusCache;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
-import org.jenkinsci.plugins.workflow.steps.SynchronousStepExecution;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
@@ -21,6 +37,11 @@ public class FindJobs extends Step implements Serializable {
     private static final long serialVersionUID = 1505586566993544821L;
     private ArrayList<String> includes;
     private ArrayList<String> excludes;
+    private int limit = 0;
+    private int offset = 0;
+    private SortBy sortBy = SortBy.NAME;
+    private boolean countOnly = false;
+    private boolean returnHandle = false;
 
     @DataBoundSetter
     public void setIncludes(ArrayList<String> includes) {
@@ -45,59 +66,191 @@ public class FindJobs extends Step implements Serializable {
         this.excludes = excludes;
     }
 
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Maximum number of job paths to return, 0 returns all of them.
+     */
+    @DataBoundSetter
+    public void setLimit(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("limit must not be negative: " + limit);
+        this.limit = limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Number of sorted matches to skip before the first one is returned.
+     */
+    @DataBoundSetter
+    public void setOffset(int offset) {
+        if (offset < 0) throw new IllegalArgumentException("offset must not be negative: " + offset);
+        this.offset = offset;
+    }
+
+    public String getSortBy() {
+        return sortBy.getKey();
+    }
+
+    /**
+     * One of name ( the default ), nameDesc or lastBuild ( most recently completed first ).
+     */
+    @DataBoundSetter
+    public void setSortBy(String sortBy) {
+        this.sortBy = SortBy.fromKey(sortBy);
+    }
+
+    public boolean getCountOnly() {
+        return countOnly;
+    }
+
+    /**
+     * Returns the number of matching jobs instead of their paths, limit and offset are ignored.
+     */
+    @DataBoundSetter
+    public void setCountOnly(boolean countOnly) {
+        this.countOnly = countOnly;
+    }
+
+    public boolean getReturnHandle() {
+        return returnHandle;
+    }
+
+    /**
+     * Keeps the job paths on the controller and returns a small {@link ListHandle} to them instead of the list.
+     */
+    @DataBoundSetter
+    public void setReturnHandle(boolean returnHandle) {
+        this.returnHandle = returnHandle;
+    }
+
     @DataBoundConstructor
     public FindJobs(ArrayList<String> includes, ArrayList<String> excludes) {
         this.setIncludes(includes);
         this.setExcludes(excludes);
     }
 
-    private ArrayList<String> getList() {
-        ArrayList<String> list = new ArrayList<String>();
-        if (includes.isEmpty()) return list;
-        ArrayList<Pattern> includes = new ArrayList<Pattern>();
-        ArrayList<Pattern> excludes = new ArrayList<Pattern>();
-        for (String str : this.includes) {
-            if (str.equals("")) continue;
-            includes.add(Pattern.compile(str));
+    /**
+     * Runs the query on the calling thread, or hands back the pending result of an identical query that is running.
+     */
+    private CompletableFuture<Object> getResult(StepMetrics.Sample sample, Executor retry) {
+        // results are filtered by permission, so only the same user may share them
+        List<Object> key = Arrays.asList(
+                JobPatternSetCache.normalize(includes),
+                JobPatternSetCache.normalize(excludes),
+                limit,
+                offset,
+                sortBy,
+                countOnly,
+                Jenkins.getAuthentication2().getName());
+        return FindJobsQueryCache.get().get(key, () -> evaluate(sample), retry).thenApply(result -> {
+            // the cached list is shared, every pipeline gets its own copy to modify
+            if (result instanceof ArrayList) return new ArrayList<Object>((ArrayList<?>) result);
+            return result;
+        });
+    }
+
+    private Object evaluate(StepMetrics.Sample sample) throws InterruptedException {
+        if (countOnly) return getCount(sample);
+        return getList(sample);
+    }
+
+    private Integer getCount(StepMetrics.Sample sample) throws InterruptedException {
+        final int[] count = {0};
+        forEachMatch(sample, name -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    private ArrayList<String> getList(StepMetrics.Sample sample) throws InterruptedException {
+        final ArrayList<String> list = new ArrayList<String>();
+        if (sortBy == SortBy.NAME) {
+            // matches already arrive in name order, so stop as soon as the requested page is full
+            final int[] skip = {offset};
+            forEachMatch(sample, name -> {
+                if (skip[0] > 0) {
+                    skip[0]--;
+                    return true;
+                }
+                list.add(name);
+                return limit == 0 || list.size() < limit;
+            });
+            return list;
         }
-        if (includes.isEmpty()) return list;
-        for (String str : this.excludes) {
-            if (str.equals("")) continue;
-            excludes.add(Pattern.compile(str));
+        forEachMatch(sample, list::add);
+        if (sortBy == SortBy.NAME_DESC) {
+            Collections.reverse(list);
+        } else if (sortBy == SortBy.LAST_BUILD) {
+            sortByLastBuild(list);
         }
+        return page(list);
+    }
 
+    private ArrayList<String> page(ArrayList<String> list) {
+        int from = Math.min(offset, list.size());
+        int to = limit == 0 ? list.size() : (int) Math.min((long) from + limit, list.size());
+        if (from == 0 && to == list.size()) return list;
+        return new ArrayList<String>(list.subList(from, to));
+    }
+
+    private static void sortByLastBuild(ArrayList<String> list) throws InterruptedException {
         Jenkins server = Jenkins.getInstanceOrNull();
-        // stop here if we have no instance of jenkins
-        if (server == null) return list;
+        if (server == null) return;
+        final HashMap<String, Long> times = new HashMap<String, Long>();
+        for (String name : list) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            Job<?, ?> job = server.getItemByFullName(name, Job.class);
+            JobStatus status = job == null ? null : JobStatusCache.get(job);
+            boolean ran = status != null && status.getLastCompletedNumber() != 0;
+            times.put(name, ran ? status.getLastCompletedTime() : Long.MIN_VALUE);
+        }
+        // newest first, jobs that never ran go last and stay in name order
+        list.sort(Comparator.comparing((String name) -> times.get(name)).reversed());
+    }
 
-        for (Job<?, ?> job : server.getAllItems(Job.class)) {
+    /**
+     * Feeds every matching job path the current user can see to the consumer, in name order, until it returns false.
+     * The number of paths looked at and of patterns they were matched against are added to the sample.
+     */
+    private void forEachMatch(StepMetrics.Sample sample, Predicate<String> consumer) throws InterruptedException {
+        if (includes.isEmpty()) return;
+        JobPatternSet patterns = JobPatternSetCache.get().get(this.includes, this.excludes);
+        long scanned = forEachVisibleMatch(patterns, consumer);
+        sample.scanned(scanned).patterns(scanned * patterns.getPatternCount());
+    }
 
-            String name = job.getFullName();
-            boolean matchOk = false;
-            for (Pattern ok : includes) {
-                if (ok.matcher(name).matches()) {
-                    matchOk = true;
-                    break;
-                }
-            }
+    /**
+     * Feeds every job path of the index that matches and that the current user can see to the consumer, in name order,
+     * until it returns false.
+     * @return the number of paths that were looked at
+     */
+    public static long forEachVisibleMatch(JobPatternSet patterns, Predicate<String> consumer)
+            throws InterruptedException {
+        if (patterns.isEmpty()) return 0;
 
-            if (!matchOk) continue;
+        Jenkins server = Jenkins.getInstanceOrNull();
+        // stop here if we have no instance of jenkins
+        if (server == null) return 0;
 
-            for (Pattern notOk : excludes) {
-                if (notOk.matcher(name).matches()) {
-                    matchOk = false;
-                    break;
-                }
-            }
-            if (!matchOk) continue;
-            list.add(name);
-        }
-        return list;
+        boolean system = ACL.SYSTEM2.equals(Jenkins.getAuthentication2());
+        return patterns.forEachMatch(JobPathIndex.get().getNames(), name -> {
+            // the index is not filtered by permission, so hide what the current user could not have listed
+            if (!system && server.getItemByFullName(name, Job.class) == null) return true;
+            return consumer.test(name);
+        });
     }
 
     @Override
     public StepExecution start(StepContext context) throws Exception {
-
+        if (countOnly && returnHandle) {
+            throw new IllegalArgumentException("returnHandle can not be combined with countOnly");
+        }
         return new StepExecutionImpl(this, context);
     }
 
@@ -120,7 +273,35 @@ public class FindJobs extends Step implements Serializable {
         }
     }
 
-    private static class StepExecutionImpl extends SynchronousStepExecution<ArrayList<String>> {
+    /**
+     * Orders findJobs can return the job paths in.
+     */
+    public enum SortBy {
+        NAME("name"),
+        NAME_DESC("nameDesc"),
+        LAST_BUILD("lastBuild");
+
+        private final String key;
+
+        SortBy(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        static SortBy fromKey(String key) {
+            if (key == null || key.equals("")) return NAME;
+            for (SortBy sortBy : values()) {
+                if (sortBy.key.equalsIgnoreCase(key)) return sortBy;
+            }
+            throw new IllegalArgumentException(
+                    "Unknown sortBy: " + key + ", expected one of name, nameDesc, lastBuild");
+        }
+    }
+
+    private static class StepExecutionImpl extends PooledStepExecution<Object> {
 
         private static final long serialVersionUID = FindJobs.serialVersionUID;
         private final FindJobs step;
@@ -130,9 +311,26 @@ public class FindJobs extends Step implements Serializable {
             this.step = step;
         }
 
+        /**
+         * An identical query that is already running is not waited for on this thread, the step completes with its
+         * result once it is there.
+         */
         @Override
-        protected ArrayList<String> run() throws Exception {
-            return step.getList();
+        protected CompletionStage<Object> runAsync() throws Exception {
+            StepMetrics.Sample sample = StepMetrics.begin("findJobs", getContext());
+            CompletableFuture<Object> result = step.getResult(sample, StepThreadPool.asCurrentUser());
+            return result.thenApply(found -> {
+                        sample.size(found instanceof List ? ((List<?>) found).size() : 1);
+                        if (!step.returnHandle) return sample.ok(found);
+                        @SuppressWarnings("unchecked")
+                        List<String> list = (List<String>) found;
+                        try {
+                            return sample.ok(ListHandle.of(ResultStore.ownerOf(getContext()), list));
+                        } catch (IOException | InterruptedException e) {
+                            throw new CompletionException(e);
+                        }
+                    })
+                    .whenComplete((found, error) -> sample.close());
         }
     }
 }
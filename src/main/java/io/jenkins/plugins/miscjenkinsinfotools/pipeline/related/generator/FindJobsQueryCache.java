@@ -0,0 +1,146 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.util.SystemProperties;
+
+/**
+ * Lets concurrent, identical findJobs queries share a single evaluation.
+ * The first caller for a key runs the query, everyone asking for the same key while it runs gets the pending result,
+ * so no thread is held waiting for it.
+ * A finished result is reused for a short time to live, counted from when the query finished, as long as the job path
+ * index has not changed in between.
+ * The time to live ( milliseconds ) and the number of remembered queries can be changed with the system properties
+ * {@code <class name>.ttl} and {@code <class name>.maxEntries}, a time to live of 0 only coalesces in-flight queries.
+ */
+public final class FindJobsQueryCache {
+
+    static final long TTL = SystemProperties.getLong(FindJobsQueryCache.class.getName() + ".ttl", 5000L);
+    static final int MAX_ENTRIES =
+            SystemProperties.getInteger(FindJobsQueryCache.class.getName() + ".maxEntries", 1024);
+
+    private static final FindJobsQueryCache INSTANCE = new FindJobsQueryCache(TTL, MAX_ENTRIES);
+
+    private final ConcurrentHashMap<List<Object>, Entry> entries = new ConcurrentHashMap<List<Object>, Entry>();
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+    private final long ttl;
+    private final int maxEntries;
+
+    FindJobsQueryCache(long ttl, int maxEntries) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    public static FindJobsQueryCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the result for the key, running the query on the calling thread only if no usable result is cached or in
+     * flight.  A result in flight is returned as it is, pending, instead of waiting for it.
+     * The object the returned future completes with is shared between callers and must not be modified.
+     * @param retry runs the query again when the evaluation this caller joined was interrupted, because the step that
+     *              ran it was stopped, which is no reason to fail this caller
+     */
+    public CompletableFuture<Object> get(List<Object> key, Callable<Object> query, Executor retry) {
+        long generation = JobPathIndex.get().getGeneration();
+        long now = System.nanoTime();
+        if (entries.size() >= maxEntries) purge(generation, now);
+
+        Entry fresh = new Entry(generation, ttl);
+        Entry entry = entries.compute(key, (k, existing) -> {
+            if (existing != null && existing.isUsable(generation, now)) return existing;
+            return fresh;
+        });
+        if (entry != fresh) {
+            shared.incrementAndGet();
+            CompletableFuture<Object> result = new CompletableFuture<Object>();
+            entry.result.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else if (error instanceof InterruptedException) {
+                    retry.execute(() -> relay(get(key, query, retry), result));
+                } else {
+                    result.completeExceptionally(error);
+                }
+            });
+            return result;
+        }
+
+        evaluations.incrementAndGet();
+        try {
+            Object value = query.call();
+            fresh.finished = System.nanoTime();
+            fresh.result.complete(value);
+        } catch (Throwable t) {
+            fresh.result.completeExceptionally(t);
+        }
+        if (ttl <= 0 || fresh.result.isCompletedExceptionally()) {
+            entries.remove(key, fresh);
+        }
+        return fresh.result;
+    }
+
+    /**
+     * @return number of queries that were actually evaluated
+     */
+    public long getEvaluations() {
+        return evaluations.get();
+    }
+
+    /**
+     * @return number of queries answered by an in-flight or recently finished evaluation
+     */
+    public long getShared() {
+        return shared.get();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void purge(long generation, long now) {
+        for (Map.Entry<List<Object>, Entry> e : entries.entrySet()) {
+            if (!e.getValue().isUsable(generation, now)) {
+                entries.remove(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    private static void relay(CompletableFuture<Object> from, CompletableFuture<Object> to) {
+        from.whenComplete((value, error) -> {
+            if (error == null) {
+                to.complete(value);
+            } else {
+                to.completeExceptionally(error);
+            }
+        });
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<Object>();
+        private final long generation;
+        private final long ttl;
+        /** Written before the result is completed, so whoever sees a successful result sees this as well. */
+        private volatile long finished;
+
+        Entry(long generation, long ttl) {
+            this.generation = generation;
+            this.ttl = ttl;
+        }
+
+        boolean isUsable(long generation, long now) {
+            if (!result.isDone()) return true;
+            if (result.isCompletedExceptionally()) return false;
+            return this.generation == generation && now - finished < TimeUnit.MILLISECONDS.toNanos(ttl);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.listeners.ItemListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+
+/**
+ * Sorted index of the full names of every job on the controller.
+ * The index is built once, after the jobs have been loaded, and is then kept current by {@link Listener}, so findJobs
+ * only has to read it instead of walking every folder with {@link Jenkins#getAllItems(Class)}.
+ * Entries are not filtered by permission, callers must check that the current user can read a job before exposing it.
+ */
+public final class JobPathIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(JobPathIndex.class.getName());
+
+    private static final JobPathIndex INSTANCE = new JobPathIndex();
+
+    private volatile ConcurrentSkipListSet<String> names = new ConcurrentSkipListSet<String>();
+    private volatile boolean loaded = false;
+    private final AtomicLong generation = new AtomicLong();
+
+    private JobPathIndex() {}
+
+    public static JobPathIndex get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Read only, sorted view of every job path known to the index.
+     * @return job full names in natural order
+     */
+    public NavigableSet<String> getNames() {
+        if (!loaded) load();
+        return Collections.unmodifiableNavigableSet(names);
+    }
+
+    /**
+     * Counter bumped after every change to the index, so results computed from it can tell when they went stale.
+     * Read it before reading the names, a result read while a change is applied then carries the older generation.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    private synchronized void load() {
+        if (!loaded) rebuild();
+    }
+
+    /**
+     * Walks the whole item tree once and replaces the current index.
+     */
+    synchronized void rebuild() {
+        Jenkins server = Jenkins.getInstanceOrNull();
+        if (server == null) return;
+        ConcurrentSkipListSet<String> fresh = new ConcurrentSkipListSet<String>();
+        try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+            for (Job<?, ?> job : server.getAllItems(Job.class)) {
+                fresh.add(job.getFullName());
+            }
+        }
+        names = fresh;
+        loaded = true;
+        generation.incrementAndGet();
+        LOGGER.log(Level.FINE, "Indexed {0} job paths", fresh.size());
+    }
+
+    synchronized void added(Item item) {
+        if (!loaded) return;
+        if (item instanceof Job) {
+            names.add(item.getFullName());
+        }
+        if (item instanceof ItemGroup) {
+            // a folder created by copy or import already carries its jobs
+            for (Job<?, ?> job : Items.allItems2(ACL.SYSTEM2, (ItemGroup<?>) item, Job.class)) {
+                names.add(job.getFullName());
+            }
+        }
+        generation.incrementAndGet();
+    }
+
+    synchronized void removed(String fullName) {
+        if (!loaded) return;
+        names.remove(fullName);
+        children(fullName).clear();
+        generation.incrementAndGet();
+    }
+
+    synchronized void moved(String oldFullName, String newFullName) {
+        if (!loaded) return;
+        if (names.remove(oldFullName)) {
+            names.add(newFullName);
+        }
+        // listeners are told about every descendant as well, but do not rely on the order they arrive in
+        NavigableSet<String> children = children(oldFullName);
+        for (String child : children.toArray(new String[0])) {
+            names.add(newFullName + child.substring(oldFullName.length()));
+        }
+        children.clear();
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Every entry that lives below the given folder path, '0' is the character that sorts right after '/'.
+     */
+    private NavigableSet<String> children(String folder) {
+        return names.subSet(folder + "/", true, folder + "0", false);
+    }
+
+    @Extension
+    public static final class Listener extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            INSTANCE.rebuild();
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            INSTANCE.added(item);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.removed(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.moved(oldFullName, newFullName);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiled form of the findJobs includes and excludes lists.
+ * All includes are joined into a single alternation, and so are all excludes, so a job path is scanned once per list
+ * instead of once per pattern.  The literal text each include has to start with is kept as well, which lets callers
+ * skip every range of the sorted job index that no include can match.
+ */
+public final class JobPatternSet {
+
+    /**
+     * Backreferences are numbered per pattern, a group name may only be declared once per pattern, and the comments
+     * flag would swallow the rest of the alternation.
+     */
+    private static final Pattern NOT_COMBINABLE =
+            Pattern.compile("\\\\[1-9]|\\\\k<|\\(\\?<[a-zA-Z]|\\(\\?[a-zA-Z-]*x");
+
+    private final List<Pattern> includes;
+    private final List<Pattern> excludes;
+    private final List<String> prefixes;
+    private final int patternCount;
+
+    private JobPatternSet(List<Pattern> includes, List<Pattern> excludes, List<String> prefixes, int patternCount) {
+        this.includes = includes;
+        this.excludes = excludes;
+        this.prefixes = prefixes;
+        this.patternCount = patternCount;
+    }
+
+    /**
+     * Compiles the given lists, empty strings are ignored just like findJobs always did.
+     * @throws PatternSyntaxException if any of the expressions is invalid
+     */
+    public static JobPatternSet compile(List<String> includes, List<String> excludes) {
+        List<String> in = nonEmpty(includes);
+        List<String> out = nonEmpty(excludes);
+        List<String> prefixes = new ArrayList<String>();
+        for (String str : in) {
+            String prefix = literalPrefix(str);
+            if (prefix.isEmpty()) {
+                // this include can match anything, so there is nothing to skip
+                prefixes = null;
+                break;
+            }
+            prefixes.add(prefix);
+        }
+        return new JobPatternSet(combine(in), combine(out), minimal(prefixes), in.size() + out.size());
+    }
+
+    /**
+     * @return true when there is no include left to match against
+     */
+    public boolean isEmpty() {
+        return includes.isEmpty();
+    }
+
+    /**
+     * @return the number of non empty include and exclude expressions this set was compiled from
+     */
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    public boolean matches(String name) {
+        return anyMatches(includes, name) && !anyMatches(excludes, name);
+    }
+
+    /**
+     * Feeds every path of the sorted set that matches to the consumer, in order, until it returns false.
+     * Only the ranges that can possibly match are walked, see {@link #ranges(NavigableSet)}.
+     * @return the number of paths that were looked at
+     * @throws InterruptedException if the calling thread was interrupted, checked for every path
+     */
+    public long forEachMatch(NavigableSet<String> names, Predicate<String> consumer) throws InterruptedException {
+        long scanned = 0;
+        if (isEmpty()) return scanned;
+        for (NavigableSet<String> range : ranges(names)) {
+            for (String name : range) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                scanned++;
+                if (!matches(name)) continue;
+                if (!consumer.test(name)) return scanned;
+            }
+        }
+        return scanned;
+    }
+
+    /**
+     * Narrows a sorted set of job paths down to the ranges that can possibly match.
+     * The ranges are disjoint and returned in order, so walking them keeps the natural order of the job paths.
+     */
+    public List<NavigableSet<String>> ranges(NavigableSet<String> names) {
+        if (prefixes == null) return Collections.singletonList(names);
+        List<NavigableSet<String>> ranges = new ArrayList<NavigableSet<String>>();
+        for (String prefix : prefixes) {
+            ranges.add(range(names, prefix));
+        }
+        return ranges;
+    }
+
+    private static NavigableSet<String> range(NavigableSet<String> names, String prefix) {
+        char last = prefix.charAt(prefix.length() - 1);
+        if (last == Character.MAX_VALUE) return names.tailSet(prefix, true);
+        String upper = prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+        return names.subSet(prefix, true, upper, false);
+    }
+
+    private static boolean anyMatches(List<Pattern> patterns, String name) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(name).matches()) return true;
+        }
+        return false;
+    }
+
+    private static List<String> nonEmpty(List<String> list) {
+        List<String> result = new ArrayList<String>();
+        if (list == null) return result;
+        for (String str : list) {
+            if (str == null || str.equals("")) continue;
+            result.add(str);
+        }
+        return result;
+    }
+
+    /**
+     * Joins the expressions into as few patterns as possible, normally just one.
+     * Every expression is compiled on its own first, an unbalanced one such as {@code a)|(?:b} would otherwise compile
+     * once wrapped into the alternation and silently mean something else.
+     */
+    private static List<Pattern> combine(List<String> expressions) {
+        List<Pattern> compiled = new ArrayList<Pattern>();
+        for (String str : expressions) {
+            compiled.add(Pattern.compile(str));
+        }
+        if (compiled.size() <= 1) return compiled;
+        List<Pattern> result = new ArrayList<Pattern>();
+        StringBuilder joined = new StringBuilder();
+        for (Pattern pattern : compiled) {
+            String str = pattern.pattern();
+            if (NOT_COMBINABLE.matcher(str).find()) {
+                result.add(pattern);
+                continue;
+            }
+            if (joined.length() > 0) joined.append('|');
+            joined.append("(?:").append(str).append(')');
+        }
+        if (joined.length() == 0) return result;
+        try {
+            result.add(0, Pattern.compile(joined.toString()));
+        } catch (PatternSyntaxException e) {
+            // every expression is valid on its own, so whatever clashes once joined is matched one by one
+            return compiled;
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the prefixes and drops the ones already covered by a shorter prefix.
+     */
+    private static List<String> minimal(List<String> prefixes) {
+        if (prefixes == null) return null;
+        List<String> result = new ArrayList<String>();
+        for (String prefix : new TreeSet<String>(prefixes)) {
+            if (!result.isEmpty() && prefix.startsWith(result.get(result.size() - 1))) continue;
+            result.add(prefix);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the literal text every string matched by the expression has to start with, which may be empty.
+     * Since job paths are always matched as a whole, the expression is implicitly anchored at the start.
+     */
+    static String literalPrefix(String regex) {
+        if (hasTopLevelAlternation(regex)) return "";
+        StringBuilder prefix = new StringBuilder();
+        int n = regex.length();
+        int i = regex.startsWith("^") ? 1 : 0;
+        while (i < n) {
+            char c = regex.charAt(i);
+            char literal;
+            int next;
+            if (c == '\\') {
+                if (i + 1 >= n) break;
+                char escaped = regex.charAt(i + 1);
+                // \d, \w, \Q, \1 and friends are not a single literal character
+                if (Character.isLetterOrDigit(escaped)) break;
+                literal = escaped;
+                next = i + 2;
+            } else if (".[]()*+?{}|^$".indexOf(c) >= 0) {
+                break;
+            } else {
+                literal = c;
+                next = i + 1;
+            }
+            // a quantifier makes the last literal optional or repeatable
+            if (next < n && "?*+{".indexOf(regex.charAt(next)) >= 0) break;
+            prefix.append(literal);
+            i = next;
+        }
+        return prefix.toString();
+    }
+
+    private static boolean hasTopLevelAlternation(String regex) {
+        int depth = 0;
+        boolean inClass = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inClass) {
+                if (c == ']') inClass = false;
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator;
+
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.LruCache;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import jenkins.util.SystemProperties;
+
+/**
+ * Bounded, least recently used cache of compiled {@link JobPatternSet}s shared by every findJobs call.
+ * Thousands of branch builds send the same few includes and excludes lists, so the lists are normalized
+ * (empty entries dropped, sorted and de-duplicated) and used as the key, and a repeated call does no compilation work.
+ * The size can be changed with the system property {@code <class name>.size}.
+ */
+public final class JobPatternSetCache {
+
+    static final int SIZE = SystemProperties.getInteger(JobPatternSetCache.class.getName() + ".size", 256);
+
+    private static final JobPatternSetCache INSTANCE = new JobPatternSetCache(SIZE);
+
+    private final LruCache<List<List<String>>, JobPatternSet> cache;
+
+    JobPatternSetCache(int maxSize) {
+        this.cache = new LruCache<List<List<String>>, JobPatternSet>(maxSize);
+    }
+
+    public static JobPatternSetCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the compiled form of the given lists, compiling them only when they are not cached yet.
+     */
+    public JobPatternSet get(List<String> includes, List<String> excludes) {
+        List<List<String>> key = Arrays.asList(normalize(includes), normalize(excludes));
+        JobPatternSet patterns = cache.get(key);
+        if (patterns != null) return patterns;
+        // compile outside of the lock, two threads racing on the same key just do the work twice
+        patterns = JobPatternSet.compile(key.get(0), key.get(1));
+        cache.put(key, patterns);
+        return patterns;
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    static List<String> normalize(List<String> list) {
+        TreeSet<String> set = new TreeSet<String>();
+        if (list != null) {
+            for (String str : list) {
+                if (str == null || str.equals("")) continue;
+                set.add(str);
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<String>(set));
+    }
+}
@@ -1,6 +1,8 @@
 package io.jenkins.plugins.miscjenkinsinfotools.generator;
 
+import hudson.model.Items;
 import hudson.model.Result;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.JobStatusCache;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
@@ -8,6 +10,7 @@ import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
 
 @WithJenkins
@@ -56,4 +59,158 @@ class FindJobsTests {
         String bad = "test-x-0";
         jenkins.assertLogNotContains(bad, completedBuild);
     }
+
+    @Test
+    void renamedMovedAndDeletedJobs() throws Exception {
+        MockFolder folder = jenkins.createFolder("folder-a");
+        WorkflowJob moved = jenkins.createProject(WorkflowJob.class, "moved-x-1");
+        WorkflowJob renamed = jenkins.createProject(WorkflowJob.class, "renamed-x-1");
+        WorkflowJob deleted = jenkins.createProject(WorkflowJob.class, "deleted-x-1");
+        Items.move(moved, folder);
+        renamed.renameTo("renamed-x-2");
+        deleted.delete();
+
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-b-1");
+        String pipelineScript = "def noise=findJobs(includes: [/^.*-x-.*$/]).join(',');echo noise";
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.SUCCESS, job);
+        jenkins.assertLogContains("folder-a/moved-x-1", completedBuild);
+        jenkins.assertLogContains("renamed-x-2", completedBuild);
+        jenkins.assertLogNotContains("renamed-x-1", completedBuild);
+        jenkins.assertLogNotContains("deleted-x-1", completedBuild);
+    }
+
+    @Test
+    void multiplePatternsAndPrefixes() throws Exception {
+        MockFolder alpha = jenkins.createFolder("alpha");
+        MockFolder beta = jenkins.createFolder("beta");
+        alpha.createProject(WorkflowJob.class, "build-1");
+        alpha.createProject(WorkflowJob.class, "build-2");
+        beta.createProject(WorkflowJob.class, "keep-1");
+        beta.createProject(WorkflowJob.class, "drop-1");
+        jenkins.createProject(WorkflowJob.class, "gamma-1");
+
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-b-1");
+        String pipelineScript = "def noise=findJobs(includes: [/^alpha\\/.*-1$/, /^beta\\/.*$/, /^gamma.*$/],"
+                + " excludes: [/^.*drop.*$/, /^gamma-.*$/]).join(',');echo \"found: ${noise}\"";
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.SUCCESS, job);
+        jenkins.assertLogContains("found: alpha/build-1,beta/keep-1", completedBuild);
+    }
+
+    @Test
+    void invalidPatternAmongOthers() throws Exception {
+        jenkins.createProject(WorkflowJob.class, "b");
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-b-1");
+        // only valid once wrapped into an alternation with the other include
+        String pipelineScript = "findJobs(includes: [/a)|(?:b/, /^test-x-.*$/])";
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.FAILURE, job);
+        jenkins.assertLogContains("PatternSyntaxException", completedBuild);
+    }
+
+    @Test
+    void sameGroupNameInTwoIncludes() throws Exception {
+        for (String name : list) {
+            jenkins.createProject(WorkflowJob.class, name);
+        }
+        jenkins.createProject(WorkflowJob.class, "test-y-1");
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-b-1");
+        // each include is fine on its own, joined into one alternation the group name would be declared twice
+        String pipelineScript =
+                """
+                def includes = [/(?<kind>test-x)-0/, /(?<kind>test-y)-.*/]
+                echo "found: ${findJobs(includes: includes).join(',')}"
+                """;
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.SUCCESS, job);
+        jenkins.assertLogContains("found: test-x-0,test-y-1", completedBuild);
+    }
+
+    @Test
+    void pagedSortedAndCounted() throws Exception {
+        for (String name : list) {
+            jenkins.createProject(WorkflowJob.class, name);
+        }
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-b-1");
+        String pipelineScript =
+                """
+                def includes = [/^test-x-.*$/]
+                echo "page: ${findJobs(includes: includes, offset: 1, limit: 1).join(',')}"
+                echo "desc: ${findJobs(includes: includes, sortBy: 'nameDesc', limit: 2).join(',')}"
+                echo "count: ${findJobs(includes: includes, countOnly: true)}"
+                """;
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.SUCCESS, job);
+        jenkins.assertLogContains("page: test-x-1", completedBuild);
+        jenkins.assertLogContains("desc: test-x-2,test-x-1", completedBuild);
+        jenkins.assertLogContains("count: 3", completedBuild);
+    }
+
+    @Test
+    void lastBuildSortsByCompletion() throws Exception {
+        WorkflowJob slow = jenkins.createProject(WorkflowJob.class, "test-x-0");
+        slow.setDefinition(new CpsFlowDefinition("sleep 3", true));
+        WorkflowJob quick = jenkins.createProject(WorkflowJob.class, "test-x-1");
+        quick.setDefinition(new CpsFlowDefinition("echo 'quick'", true));
+        jenkins.createProject(WorkflowJob.class, "test-x-2");
+
+        // the slow build starts first and finishes last
+        WorkflowRun slowRun = slow.scheduleBuild2(0).waitForStart();
+        jenkins.waitForMessage("Sleeping for", slowRun);
+        jenkins.buildAndAssertSuccess(quick);
+        jenkins.assertBuildStatusSuccess(jenkins.waitForCompletion(slowRun));
+        while (JobStatusCache.get(slow).getLastCompletedNumber() == 0) {
+            Thread.sleep(100);
+        }
+
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-b-1");
+        String pipelineScript =
+                """
+                echo "newest: ${findJobs(includes: [/^test-x-.*$/], sortBy: 'lastBuild').join(',')}"
+                """;
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertSuccess(job);
+        jenkins.assertLogContains("newest: test-x-0,test-x-1,test-x-2", completedBuild);
+    }
+
+    @Test
+    void badSortBy() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-b-1");
+        String pipelineScript = "findJobs(includes: [/^.*$/], sortBy: 'size')";
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.FAILURE, job);
+        jenkins.assertLogContains("Unknown sortBy: size", completedBuild);
+    }
+
+    @Test
+    void returnHandle() throws Exception {
+        for (String name : list) {
+            jenkins.createProject(WorkflowJob.class, name);
+        }
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-b-1");
+        String pipelineScript =
+                """
+                def jobs = findJobs(includes: [/^test-x-.*$/], returnHandle: true)
+                echo "size: ${jobs.size()} first: ${jobs[0]} has: ${jobs.contains('test-x-2')}"
+                for (String name : jobs) {
+                    sleep 0
+                    echo "job: ${name}"
+                }
+                jobs.release()
+                echo "available: ${jobs.isAvailable()}"
+                """;
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.SUCCESS, job);
+        jenkins.assertLogContains("size: 3 first: test-x-0 has: true", completedBuild);
+        for (String name : list) {
+            jenkins.assertLogContains("job: " + name, completedBuild);
+        }
+        jenkins.assertLogContains("available: false", completedBuild);
+
+        job.setDefinition(
+                new CpsFlowDefinition("findJobs(includes: [/^.*$/], countOnly: true, returnHandle: true)", true));
+        completedBuild = jenkins.buildAndAssertStatus(Result.FAILURE, job);
+        jenkins.assertLogContains("returnHandle can not be combined with countOnly", completedBuild);
+    }
 }
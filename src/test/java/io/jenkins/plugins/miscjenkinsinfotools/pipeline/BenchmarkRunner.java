@@ -0,0 +1,37 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs every JMH benchmark of the plugin, only when asked for with {@code mvn -P benchmark test}.
+ * Throughput comes from JMH itself, allocation rate per operation from the GC profiler.
+ */
+class BenchmarkRunner {
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.run", matches = "true")
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include("io\\.jenkins\\.plugins\\.miscjenkinsinfotools\\..*Benchmark")
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .timeUnit(TimeUnit.SECONDS)
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-report.json")
+                .build();
+        new Runner(options).run();
+    }
+}
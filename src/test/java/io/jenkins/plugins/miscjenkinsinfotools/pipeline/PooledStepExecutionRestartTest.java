@@ -0,0 +1,49 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline;
+
+import hudson.model.Result;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.PooledStepExecutionTest.BlockingStrategy;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.jvnet.hudson.test.junit.jupiter.JenkinsSessionExtension;
+
+class PooledStepExecutionRestartTest {
+
+    @RegisterExtension
+    final JenkinsSessionExtension sessions = new JenkinsSessionExtension();
+
+    @BeforeEach
+    void beforeEach() {
+        BlockingStrategy.reset();
+    }
+
+    @AfterEach
+    void afterEach() {
+        // lets the worker of the first session finish, its step context is long gone by now
+        BlockingStrategy.armed = false;
+        BlockingStrategy.release.countDown();
+    }
+
+    @Test
+    void testResumeFailsTheStep() throws Throwable {
+        sessions.then(j -> {
+            j.createProject(WorkflowJob.class, "test-slow");
+            j.jenkins.setAuthorizationStrategy(new BlockingStrategy());
+            WorkflowJob job = j.createProject(WorkflowJob.class, "resume-me");
+            job.setDefinition(new CpsFlowDefinition("findJobs(includes: [/^test-.*$/], sortBy: 'lastBuild')", true));
+            BlockingStrategy.armed = true;
+            job.scheduleBuild2(0).waitForStart();
+            BlockingStrategy.entered.await();
+        });
+        sessions.then(j -> {
+            BlockingStrategy.armed = false;
+            WorkflowRun run = j.jenkins.getItemByFullName("resume-me", WorkflowJob.class).getBuildByNumber(1);
+            j.assertBuildStatus(Result.FAILURE, j.waitForCompletion(run));
+            j.assertLogContains("Resume after a restart not supported for this step", run);
+        });
+    }
+}
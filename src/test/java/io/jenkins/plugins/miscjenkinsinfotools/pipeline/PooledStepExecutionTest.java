@@ -0,0 +1,151 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.AbstractItem;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.security.ACL;
+import hudson.security.AuthorizationStrategy;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator.FindJobsQueryCache;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class PooledStepExecutionTest {
+
+    private static final String FIND_SLOW =
+            "echo \"found: ${findJobs(includes: [/^test-.*$/], sortBy: 'lastBuild').join(',')}\"";
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) throws Exception {
+        jenkins = rule;
+        BlockingStrategy.reset();
+        jenkins.createProject(WorkflowJob.class, "test-slow");
+        jenkins.createProject(WorkflowJob.class, "test-x-1");
+        jenkins.jenkins.setAuthorizationStrategy(new BlockingStrategy());
+        BlockingStrategy.armed = true;
+    }
+
+    @AfterEach
+    void afterEach() {
+        BlockingStrategy.armed = false;
+        BlockingStrategy.release.countDown();
+    }
+
+    private WorkflowRun startBlocked(String name, String script) throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, name);
+        job.setDefinition(new CpsFlowDefinition(script, true));
+        WorkflowRun run = job.scheduleBuild2(0).waitForStart();
+        BlockingStrategy.entered.await();
+        return run;
+    }
+
+    @Test
+    void testAbortInterruptsFindJobs() throws Exception {
+        WorkflowRun run = startBlocked("stop-me", FIND_SLOW);
+        run.doStop();
+        jenkins.assertBuildStatus(Result.ABORTED, jenkins.waitForCompletion(run));
+        assertTrue(BlockingStrategy.interrupted.get(), "the worker was not interrupted");
+        jenkins.assertLogNotContains("found:", run);
+    }
+
+    @Test
+    void testAbortInterruptsRelatedJobChecks() throws Exception {
+        WorkflowRun run = startBlocked("stop-me", "relatedJobChecks(deps: ['test-slow', 'test-x-1'])");
+        run.doStop();
+        jenkins.assertBuildStatus(Result.ABORTED, jenkins.waitForCompletion(run));
+        assertTrue(BlockingStrategy.interrupted.get(), "the worker was not interrupted");
+        jenkins.assertLogContains("Testing Job: test-slow", run);
+        jenkins.assertLogNotContains("Testing Job: test-x-1", run);
+    }
+
+    @Test
+    void testSharedQuerySurvivesAbort() throws Exception {
+        long evaluations = FindJobsQueryCache.get().getEvaluations();
+        long shared = FindJobsQueryCache.get().getShared();
+        WorkflowRun stopped = startBlocked("stop-me", FIND_SLOW);
+        WorkflowJob other = jenkins.createProject(WorkflowJob.class, "keep-going");
+        other.setDefinition(new CpsFlowDefinition(FIND_SLOW, true));
+        WorkflowRun kept = other.scheduleBuild2(0).waitForStart();
+        while (FindJobsQueryCache.get().getShared() == shared) {
+            Thread.sleep(10);
+        }
+
+        // the build that runs the query is stopped, the one waiting for it has to run the query itself
+        stopped.doStop();
+        jenkins.assertBuildStatus(Result.ABORTED, jenkins.waitForCompletion(stopped));
+        BlockingStrategy.release.countDown();
+        jenkins.assertBuildStatusSuccess(jenkins.waitForCompletion(kept));
+        jenkins.assertLogContains("found: test-slow,test-x-1", kept);
+        assertEquals(2, FindJobsQueryCache.get().getEvaluations() - evaluations);
+    }
+
+    /**
+     * Lets everyone do everything, but holds a step thread pool worker that reads the permissions of test-slow until
+     * the test releases it or the worker is interrupted.
+     */
+    public static final class BlockingStrategy extends AuthorizationStrategy {
+
+        static final String SLOW = "test-slow";
+        static volatile boolean armed;
+        static volatile CountDownLatch entered;
+        static volatile CountDownLatch release;
+        static final AtomicBoolean interrupted = new AtomicBoolean();
+
+        static void reset() {
+            armed = false;
+            entered = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+            interrupted.set(false);
+        }
+
+        @Override
+        public ACL getRootACL() {
+            return UNSECURED.getRootACL();
+        }
+
+        @Override
+        public ACL getACL(Job<?, ?> project) {
+            block(project);
+            return getRootACL();
+        }
+
+        @Override
+        public ACL getACL(AbstractItem item) {
+            block(item);
+            return getRootACL();
+        }
+
+        @Override
+        public Collection<String> getGroups() {
+            return Collections.emptySet();
+        }
+
+        private static void block(Item item) {
+            if (!armed || !item.getFullName().equals(SLOW)) return;
+            if (!Thread.currentThread().getName().startsWith("misc-info-tools step")) return;
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
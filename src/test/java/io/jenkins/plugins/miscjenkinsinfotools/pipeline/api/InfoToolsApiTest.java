@@ -0,0 +1,95 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import hudson.model.Label;
+import hudson.slaves.DumbSlave;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import net.sf.json.JSONObject;
+import org.htmlunit.Page;
+import org.htmlunit.WebRequest;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class InfoToolsApiTest {
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+    }
+
+    private Page get(JenkinsRule.WebClient wc, String path, String etag) throws Exception {
+        WebRequest request = new WebRequest(new URL(jenkins.getURL(), path));
+        if (etag != null) request.setAdditionalHeader("If-None-Match", etag);
+        return wc.getPage(request);
+    }
+
+    @Test
+    void testJobs() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            jenkins.createProject(WorkflowJob.class, "api-x-" + i);
+        }
+        jenkins.createProject(WorkflowJob.class, "api-y-0");
+        JenkinsRule.WebClient wc = jenkins.createWebClient().withThrowExceptionOnFailingStatusCode(false);
+        String path = "misc-info-tools/jobs?include=" + URLEncoder.encode("^api-x-.*$", StandardCharsets.UTF_8)
+                + "&exclude=" + URLEncoder.encode("^.*-0$", StandardCharsets.UTF_8);
+
+        Page page = get(wc, path, null);
+        assertEquals(200, page.getWebResponse().getStatusCode());
+        JSONObject json = JSONObject.fromObject(page.getWebResponse().getContentAsString());
+        assertEquals("[\"api-x-1\",\"api-x-2\"]", json.getJSONArray("jobs").toString());
+        String etag = page.getWebResponse().getResponseHeaderValue("ETag");
+
+        // nothing changed, so nothing is sent
+        page = get(wc, path, etag);
+        assertEquals(304, page.getWebResponse().getStatusCode());
+
+        // another query has another tag
+        page = get(wc, path + "&limit=1", etag);
+        assertEquals(200, page.getWebResponse().getStatusCode());
+        json = JSONObject.fromObject(page.getWebResponse().getContentAsString());
+        assertEquals("[\"api-x-1\"]", json.getJSONArray("jobs").toString());
+
+        jenkins.createProject(WorkflowJob.class, "api-x-3");
+        page = get(wc, path, etag);
+        assertEquals(200, page.getWebResponse().getStatusCode());
+        assertNotEquals(etag, page.getWebResponse().getResponseHeaderValue("ETag"));
+        json = JSONObject.fromObject(page.getWebResponse().getContentAsString());
+        assertEquals("[\"api-x-1\",\"api-x-2\",\"api-x-3\"]", json.getJSONArray("jobs").toString());
+
+        page = get(wc, "misc-info-tools/jobs?include=" + URLEncoder.encode("(", StandardCharsets.UTF_8), null);
+        assertEquals(400, page.getWebResponse().getStatusCode());
+    }
+
+    @Test
+    void testLabels() throws Exception {
+        DumbSlave agent = jenkins.createOnlineSlave(Label.get("linux"));
+        JenkinsRule.WebClient wc = jenkins.createWebClient().withThrowExceptionOnFailingStatusCode(false);
+        String path = "misc-info-tools/labels?label=linux";
+
+        Page page = get(wc, path, null);
+        assertEquals(200, page.getWebResponse().getStatusCode());
+        JSONObject json = JSONObject.fromObject(page.getWebResponse().getContentAsString());
+        assertEquals("[\"linux\"]", json.getJSONObject("nodes").getJSONArray(agent.getNodeName()).toString());
+        String etag = page.getWebResponse().getResponseHeaderValue("ETag");
+        assertEquals(304, get(wc, path, etag).getWebResponse().getStatusCode());
+
+        agent.setLabelString("linux docker");
+        jenkins.jenkins.updateNode(agent);
+        page = get(wc, path, etag);
+        assertEquals(200, page.getWebResponse().getStatusCode());
+        json = JSONObject.fromObject(page.getWebResponse().getContentAsString());
+        assertEquals(
+                "[\"docker\",\"linux\"]",
+                json.getJSONObject("nodes").getJSONArray(agent.getNodeName()).toString());
+    }
+}
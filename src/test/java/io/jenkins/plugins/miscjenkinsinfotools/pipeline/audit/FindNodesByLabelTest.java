@@ -0,0 +1,62 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import hudson.model.Result;
+import hudson.slaves.DumbSlave;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class FindNodesByLabelTest {
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+    }
+
+    private DumbSlave agent(String labels) throws Exception {
+        DumbSlave agent = jenkins.createSlave();
+        agent.setLabelString(labels);
+        jenkins.jenkins.updateNode(agent);
+        return agent;
+    }
+
+    @Test
+    void testExpressions() throws Exception {
+        DumbSlave docker = agent("linux docker");
+        DumbSlave arm = agent("linux docker arm");
+        DumbSlave plain = agent("linux");
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "node-find");
+        String pipelineScript =
+                """
+                echo "first: ${findNodesByLabel('linux && docker && !arm')}"
+                echo "second: ${findNodesByLabel('linux && docker && !arm')}"
+                echo "either: ${findNodesByLabel('arm || !docker')}"
+                echo "none: ${findNodesByLabel('windows')}"
+                """;
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        long misses = LabelExpressionCache.get().getMisses();
+        WorkflowRun completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        jenkins.assertLogContains("first: [" + docker.getNodeName() + "]", completedBuild);
+        jenkins.assertLogContains("second: [" + docker.getNodeName() + "]", completedBuild);
+        jenkins.assertLogContains("either: [" + arm.getNodeName() + ", " + plain.getNodeName() + "]", completedBuild);
+        jenkins.assertLogContains("none: []", completedBuild);
+        // the repeated expression was parsed only once
+        assertEquals(3, LabelExpressionCache.get().getMisses() - misses);
+    }
+
+    @Test
+    void testBadExpression() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "node-find");
+        job.setDefinition(new CpsFlowDefinition("findNodesByLabel('linux &&')", true));
+        jenkins.buildAndAssertStatus(Result.FAILURE, job);
+    }
+}
@@ -0,0 +1,47 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class GetLabelCapacityTest {
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+    }
+
+    @Test
+    void testCapacityAndQueue() throws Exception {
+        jenkins.createOnlineSlave(Label.get("linux"));
+        FreeStyleProject waiting = jenkins.createFreeStyleProject("waiting");
+        waiting.setAssignedLabel(Label.get("gpu"));
+        waiting.scheduleBuild2(0);
+
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "capacity");
+        String pipelineScript =
+                """
+                def cap = getLabelCapacity(labels: ['linux', 'gpu', 'linux && !arm'])
+                echo "linux: ${cap.linux.total} ${cap.linux.busy} ${cap.linux.idle}"
+                echo "gpu: ${cap.gpu.total} ${cap.gpu.queued}"
+                echo "expression: ${cap['linux && !arm'].total}"
+                echo "all: ${getLabelCapacity().linux.total}"
+                """;
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        jenkins.assertLogContains("linux: 1 0 1", completedBuild);
+        jenkins.assertLogContains("gpu: 0 1", completedBuild);
+        jenkins.assertLogContains("expression: 1", completedBuild);
+        jenkins.assertLogContains("all: 1", completedBuild);
+        jenkins.jenkins.getQueue().clear();
+    }
+}
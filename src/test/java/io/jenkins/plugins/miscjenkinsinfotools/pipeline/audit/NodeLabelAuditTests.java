@@ -1,8 +1,14 @@
 package io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import hudson.model.Label;
+import hudson.model.Result;
+import hudson.slaves.DumbSlave;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.handle.ResultStore;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.JenkinsRule;
@@ -32,4 +38,93 @@ class NodeLabelAuditTests {
         // String expectedString = "TelDevBuildTools";
         // jenkins.assertLogContains(expectedString, completedBuild);
     }
+
+    @Test
+    void testLookupByLabelAndNode() throws Exception {
+        DumbSlave first = jenkins.createOnlineSlave();
+        first.setLabelString("linux docker");
+        jenkins.jenkins.updateNode(first);
+        DumbSlave second = jenkins.createOnlineSlave(Label.get("linux"));
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "node-audit");
+        String pipelineScript =
+                """
+                echo "docker: ${getAllLabelsForAllNodes(label: 'docker').keySet().sort()}"
+                echo "linux: ${getAllLabelsForAllNodes(label: 'linux').keySet().sort()}"
+                echo "labels: ${getAllLabelsForAllNodes(node: '%s')}"
+                echo "missing: ${getAllLabelsForAllNodes(node: 'no-such-node')}"
+                """
+                        .formatted(first.getNodeName());
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        jenkins.assertLogContains("docker: [" + first.getNodeName() + "]", completedBuild);
+        jenkins.assertLogContains("linux: [" + first.getNodeName() + ", " + second.getNodeName() + "]", completedBuild);
+        jenkins.assertLogContains("labels: [" + first.getNodeName() + ":[docker, linux]]", completedBuild);
+        jenkins.assertLogContains("missing: [:]", completedBuild);
+
+        // label changes and removed nodes show up without a rescan
+        second.setLabelString("linux docker");
+        jenkins.jenkins.updateNode(second);
+        jenkins.jenkins.removeNode(first);
+        completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        jenkins.assertLogContains("docker: [" + second.getNodeName() + "]", completedBuild);
+        jenkins.assertLogContains("linux: [" + second.getNodeName() + "]", completedBuild);
+    }
+
+    @Test
+    void testChangesSince() throws Exception {
+        DumbSlave kept = jenkins.createOnlineSlave(Label.get("linux"));
+        DumbSlave dropped = jenkins.createOnlineSlave(Label.get("linux"));
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "node-audit");
+        job.setDefinition(new CpsFlowDefinition(
+                "def all = getAllLabelsForAllNodes(since: 0)\n"
+                        + "echo \"full: ${all.full} ${all.nodes.keySet().sort()}\"\n"
+                        + "echo \"generation: ${all.generation}\"",
+                true));
+        WorkflowRun completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        jenkins.assertLogContains(
+                "full: true [" + kept.getNodeName() + ", " + dropped.getNodeName() + "]", completedBuild);
+        long generation = NodeLabelIndex.get().getGeneration();
+
+        kept.setLabelString("linux docker");
+        jenkins.jenkins.updateNode(kept);
+        jenkins.jenkins.removeNode(dropped);
+        job.setDefinition(new CpsFlowDefinition(
+                "def delta = getAllLabelsForAllNodes(since: " + generation + ")\n"
+                        + "echo \"delta: ${delta.full} ${delta.nodes} ${delta.removed}\"",
+                true));
+        completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        jenkins.assertLogContains(
+                "delta: false [" + kept.getNodeName() + ":[docker, linux]] [" + dropped.getNodeName() + "]",
+                completedBuild);
+    }
+
+    @Test
+    void testReturnHandle() throws Exception {
+        DumbSlave first = jenkins.createOnlineSlave(Label.get("linux"));
+        DumbSlave second = jenkins.createOnlineSlave(Label.get("linux docker"));
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "node-audit");
+        String pipelineScript =
+                """
+                def audit = getAllLabelsForAllNodes(label: 'linux', returnHandle: true)
+                echo "size: ${audit.size()}"
+                for (String node : audit) {
+                    echo "node: ${node} ${audit[node]}"
+                }
+                echo "known: ${audit.containsKey('%s')} ${audit.containsKey('no-such-node')}"
+                """
+                        .formatted(first.getNodeName());
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        int stored = ResultStore.get().size();
+        WorkflowRun completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        jenkins.assertLogContains("size: 2", completedBuild);
+        jenkins.assertLogContains("node: " + first.getNodeName() + " [linux]", completedBuild);
+        jenkins.assertLogContains("node: " + second.getNodeName() + " [docker, linux]", completedBuild);
+        jenkins.assertLogContains("known: true false", completedBuild);
+        // the map is dropped with the build that asked for it
+        assertEquals(stored, ResultStore.get().size());
+
+        job.setDefinition(new CpsFlowDefinition("getAllLabelsForAllNodes(since: 0, returnHandle: true)", true));
+        completedBuild = jenkins.buildAndAssertStatus(Result.FAILURE, job);
+        jenkins.assertLogContains("since can not be combined with returnHandle", completedBuild);
+    }
 }
@@ -0,0 +1,82 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Node label aggregation and lookups of {@link NodeLabelIndex} on synthetic agents, without a controller.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class NodeLabelIndexBenchmark {
+
+    @Param({"1000", "10000"})
+    public int nodes;
+
+    @Param({"5", "20"})
+    public int labelsPerNode;
+
+    private NodeLabelIndex index;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        index = new NodeLabelIndex();
+        for (int i = 0; i < nodes; i++) {
+            put("agent-" + i);
+        }
+    }
+
+    private void put(String node) {
+        List<String> labels = new ArrayList<String>();
+        labels.add(node);
+        StringBuilder labelString = new StringBuilder();
+        for (int i = 0; i < labelsPerNode; i++) {
+            String label = "label-" + random.nextInt(200);
+            labels.add(label);
+            labelString.append(label).append(' ');
+        }
+        index.put(node, labelString.toString().trim(), labels);
+    }
+
+    /**
+     * The whole map getAllLabelsForAllNodes returns.
+     */
+    @Benchmark
+    public Object snapshot() {
+        return index.snapshot();
+    }
+
+    @Benchmark
+    public Object nodesWithLabel() {
+        return index.nodesWith("label-7");
+    }
+
+    /**
+     * What findNodesByLabel does for {@code label-1 && label-2 && !label-3}.
+     */
+    @Benchmark
+    public Object nodesMatching() {
+        return index.nodesMatching(
+                labels -> labels.contains("label-1") && labels.contains("label-2") && !labels.contains("label-3"));
+    }
+
+    /**
+     * A cloud agent being relabelled, then a delta query for it.
+     */
+    @Benchmark
+    public Object relabel() {
+        long generation = index.getGeneration();
+        put("agent-" + random.nextInt(nodes));
+        return index.changesSince(generation);
+    }
+}
@@ -0,0 +1,46 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.buildnumber;
+
+import hudson.model.Result;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class GetJobBuildNumbersTest {
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+    }
+
+    @Test
+    void testKinds() throws Exception {
+        WorkflowJob good = jenkins.createProject(WorkflowJob.class, "good");
+        good.setDefinition(new CpsFlowDefinition("echo 'ok'", true));
+        jenkins.buildAndAssertSuccess(good);
+        jenkins.buildAndAssertSuccess(good);
+        WorkflowJob bad = jenkins.createProject(WorkflowJob.class, "bad");
+        bad.setDefinition(new CpsFlowDefinition("error 'broken'", true));
+        jenkins.buildAndAssertStatus(Result.FAILURE, bad);
+
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        String pipelineScript =
+                """
+                def jobs = ['good', 'bad', 'NoExists']
+                echo "successful: ${getLastBuildNumbers(jobs)}"
+                echo "failed: ${getLastBuildNumbers(jobs: jobs, kind: 'lastFailed')}"
+                echo "completed: ${getLastBuildNumbers(jobs: jobs, kind: 'lastCompleted')}"
+                """;
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertSuccess(job);
+        jenkins.assertLogContains("successful: [good:2, bad:null, NoExists:null]", completedBuild);
+        jenkins.assertLogContains("failed: [good:null, bad:1, NoExists:null]", completedBuild);
+        jenkins.assertLogContains("completed: [good:2, bad:1, NoExists:null]", completedBuild);
+    }
+}
@@ -0,0 +1,58 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.buildnumber;
+
+import hudson.model.Result;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class WaitForBuildNumberTest {
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+    }
+
+    @Test
+    void testAlreadyNewer() throws Exception {
+        WorkflowJob upstream = jenkins.createProject(WorkflowJob.class, "upstream");
+        upstream.setDefinition(new CpsFlowDefinition("echo 'ok'", true));
+        jenkins.buildAndAssertSuccess(upstream);
+
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        job.setDefinition(new CpsFlowDefinition("echo \"got: ${waitForBuildNumber('upstream')}\"", true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertSuccess(job);
+        jenkins.assertLogContains("got: 1", completedBuild);
+    }
+
+    @Test
+    void testWaitsForNextBuild() throws Exception {
+        WorkflowJob upstream = jenkins.createProject(WorkflowJob.class, "upstream");
+        upstream.setDefinition(new CpsFlowDefinition("echo 'ok'", true));
+        jenkins.buildAndAssertSuccess(upstream);
+
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        job.setDefinition(new CpsFlowDefinition(
+                "echo \"got: ${waitForBuildNumber(job: 'upstream', newerThan: 1, timeout: 60)}\"", true));
+        WorkflowRun waiting = job.scheduleBuild2(0).waitForStart();
+        jenkins.waitForMessage("Waiting for a lastSuccessful build of upstream newer than #1", waiting);
+        jenkins.buildAndAssertSuccess(upstream);
+        jenkins.assertBuildStatusSuccess(jenkins.waitForCompletion(waiting));
+        jenkins.assertLogContains("got: 2", waiting);
+    }
+
+    @Test
+    void testTimeout() throws Exception {
+        jenkins.createProject(WorkflowJob.class, "upstream");
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        job.setDefinition(new CpsFlowDefinition("waitForBuildNumber(job: 'upstream', timeout: 1)", true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.FAILURE, job);
+        jenkins.assertLogContains("Timed out waiting for a lastSuccessful build of upstream", completedBuild);
+    }
+}
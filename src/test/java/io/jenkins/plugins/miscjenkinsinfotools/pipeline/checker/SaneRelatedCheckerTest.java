@@ -1,8 +1,15 @@
 package io.jenkins.plugins.miscjenkinsinfotools.pipeline.checker;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import hudson.model.FreeStyleProject;
 import hudson.model.Label;
 import hudson.model.Result;
+import hudson.tasks.BuildTrigger;
+import io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.UpstreamClosureCache;
+import java.util.List;
 import jenkins.model.Jenkins;
+import jenkins.triggers.ReverseBuildTrigger;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
@@ -81,4 +88,108 @@ class SaneRelatedCheckerTest {
         String expectedString = "All requested jobs look good!";
         jenkins.assertLogContains(expectedString, completedBuild);
     }
+
+    @Test
+    void testReportAllFailures() throws Exception {
+        Jenkins.get().createProject(WorkflowJob.class, "test-1");
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-2");
+        String pipelineScript = "relatedJobChecks(deps: ['NoExists', 'test-1', 'AlsoMissing'], failFast: false)";
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.FAILURE, job);
+        jenkins.assertLogContains("Job: NoExists, does not exist!", completedBuild);
+        jenkins.assertLogContains("Job: test-1, has never run!", completedBuild);
+        jenkins.assertLogContains("Job: AlsoMissing, does not exist!", completedBuild);
+        jenkins.assertLogContains("3 of 3 related jobs failed their checks", completedBuild);
+    }
+
+    @Test
+    void testReturnStatus() throws Exception {
+        Jenkins.get().createProject(WorkflowJob.class, "test-1");
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-2");
+        String pipelineScript =
+                """
+                def report = relatedJobChecks(deps: ['NoExists', 'test-1'], returnStatus: true)
+                echo "report: ${report}"
+                """;
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.SUCCESS, job);
+        jenkins.assertLogContains("report: [NoExists:MISSING, test-1:NEVER_RUN]", completedBuild);
+    }
+
+    @Test
+    void testWaitForBuildingJob() throws Exception {
+        WorkflowJob upstream = jenkins.createProject(WorkflowJob.class, "test-1");
+        upstream.setDefinition(new CpsFlowDefinition("sleep 5", true));
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-2");
+        job.setDefinition(new CpsFlowDefinition("relatedJobChecks(deps: ['test-1'], waitTimeout: 60)", true));
+
+        WorkflowRun upstreamBuild = upstream.scheduleBuild2(0).waitForStart();
+        WorkflowRun completedBuild = jenkins.buildAndAssertSuccess(job);
+        jenkins.assertBuildStatusSuccess(upstreamBuild);
+        jenkins.assertLogContains("Waiting up to 60s for related jobs", completedBuild);
+        jenkins.assertLogContains("All requested jobs look good!", completedBuild);
+    }
+
+    @Test
+    void testWaitTimesOut() throws Exception {
+        WorkflowJob upstream = jenkins.createProject(WorkflowJob.class, "test-1");
+        upstream.setDefinition(new CpsFlowDefinition("sleep 60", true));
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-2");
+        job.setDefinition(new CpsFlowDefinition("relatedJobChecks(deps: ['test-1'], waitTimeout: 1)", true));
+
+        upstream.scheduleBuild2(0).waitForStart();
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.ABORTED, job);
+        jenkins.assertLogContains("Gave up waiting for related jobs", completedBuild);
+        jenkins.assertLogContains("Job: test-1. is currently building!", completedBuild);
+    }
+
+    @Test
+    void testTransitive() throws Exception {
+        FreeStyleProject a = jenkins.createFreeStyleProject("test-a");
+        jenkins.createFreeStyleProject("test-b");
+        a.getPublishersList().add(new BuildTrigger("test-b", Result.SUCCESS));
+        jenkins.jenkins.rebuildDependencyGraph();
+        WorkflowJob c = jenkins.createProject(WorkflowJob.class, "test-c");
+        c.addTrigger(new ReverseBuildTrigger("test-b"));
+
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-main");
+        String pipelineScript =
+                """
+                def report = relatedJobChecks(deps: ['test-c'], transitive: true, returnStatus: true)
+                echo "report: ${report}"
+                """;
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.SUCCESS, job);
+        jenkins.assertLogContains("Checking 3 related jobs including their upstream jobs", completedBuild);
+        jenkins.assertLogContains("report: [test-c:NEVER_RUN, test-b:NEVER_RUN, test-a:NEVER_RUN]", completedBuild);
+
+        assertEquals(List.of("test-b", "test-a"), UpstreamClosureCache.upstreamOf("test-c"));
+        long misses = UpstreamClosureCache.getMisses();
+        assertEquals(List.of("test-b", "test-a"), UpstreamClosureCache.upstreamOf("test-c"));
+        assertEquals(misses, UpstreamClosureCache.getMisses());
+
+        // saving a job without touching its trigger keeps the cached closures
+        c.save();
+        assertEquals(List.of("test-b", "test-a"), UpstreamClosureCache.upstreamOf("test-c"));
+        assertEquals(misses, UpstreamClosureCache.getMisses());
+
+        // jobs no closure knows about come and go without touching them
+        jenkins.createProject(WorkflowJob.class, "branch-1").delete();
+        assertEquals(List.of("test-b", "test-a"), UpstreamClosureCache.upstreamOf("test-c"));
+        assertEquals(misses, UpstreamClosureCache.getMisses());
+
+        // a different upstream project in the trigger drops them
+        c.addTrigger(new ReverseBuildTrigger("test-a"));
+        c.save();
+        assertEquals(List.of("test-a"), UpstreamClosureCache.upstreamOf("test-c"));
+        assertEquals(misses + 1, UpstreamClosureCache.getMisses());
+
+        // deleting a job in the chain drops the cached closures
+        c.addTrigger(new ReverseBuildTrigger("test-b"));
+        c.save();
+        assertEquals(List.of("test-b", "test-a"), UpstreamClosureCache.upstreamOf("test-c"));
+        jenkins.jenkins.getItem("test-b").delete();
+        assertEquals(List.of(), UpstreamClosureCache.upstreamOf("test-c"));
+        assertEquals(misses + 3, UpstreamClosureCache.getMisses());
+    }
 }
@@ -0,0 +1,70 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import org.htmlunit.html.HtmlPage;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class StepMetricsTest {
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+    }
+
+    @Test
+    void testCountersAndPage() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            jenkins.createProject(WorkflowJob.class, "metrics-x-" + i);
+        }
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "metrics-caller");
+        String pipelineScript =
+                """
+                echo "found: ${findJobs(includes: [/^metrics-x-.*$/])}"
+                echo "number: ${getLastSuccessfulBuildNumber('metrics-x-0')}"
+                echo "labels: ${getAllLabelsForAllNodes()}"
+                """;
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        StepStats findJobs = StepMetrics.stats("findJobs");
+        long calls = findJobs.getCalls();
+        long failures = findJobs.getFailures();
+        long scanned = findJobs.getItemsScanned();
+        long size = findJobs.getResultSize();
+        long numbers = StepMetrics.stats("getLastSuccessfulBuildNumber").getCalls();
+
+        WorkflowRun completedBuild = jenkins.buildAndAssertSuccess(job);
+        jenkins.assertLogContains("found: [metrics-x-0, metrics-x-1, metrics-x-2]", completedBuild);
+
+        assertEquals(calls + 1, findJobs.getCalls());
+        assertEquals(failures, findJobs.getFailures());
+        assertEquals(scanned + 3, findJobs.getItemsScanned());
+        assertEquals(size + 3, findJobs.getResultSize());
+        assertEquals(numbers + 1, StepMetrics.stats("getLastSuccessfulBuildNumber").getCalls());
+        assertTrue(StepMetrics.stats("getAllLabelsForAllNodes").getCalls() > 0);
+        assertTrue(StepMetrics.topCallers(StepMetricsLink.TOP_CALLERS).stream()
+                .anyMatch(caller -> caller.getJob().equals("metrics-caller") && caller.getCalls() == 3));
+
+        ObjectName name = new ObjectName(StepMetrics.DOMAIN + ":type=Step,name=" + ObjectName.quote("findJobs"));
+        assertEquals(findJobs.getCalls(), ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Calls"));
+        ObjectName caches = new ObjectName(StepMetrics.DOMAIN + ":type=Caches");
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(caches));
+
+        HtmlPage page = jenkins.createWebClient().goTo("manage/misc-info-tools-metrics");
+        String text = page.asNormalizedText();
+        assertTrue(text.contains("getLastSuccessfulBuildNumber"));
+        assertTrue(text.contains("Compiled findJobs patterns"));
+        assertTrue(text.contains("metrics-caller"));
+    }
+}
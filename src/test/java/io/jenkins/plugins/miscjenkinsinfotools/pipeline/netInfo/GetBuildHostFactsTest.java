@@ -0,0 +1,59 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.netInfo;
+
+import hudson.model.Label;
+import hudson.model.Result;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class GetBuildHostFactsTest {
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+    }
+
+    @Test
+    void testAllFactsOnAgent() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        jenkins.createOnlineSlave(Label.get("my-agent"));
+
+        String pipelineScript =
+                """
+                node('my-agent') {
+                  def facts = getBuildHostFacts()
+                  echo "keys: ${facts.keySet().sort()}"
+                  echo "hostname: ${facts.hostname}"
+                  echo "addresses: ${facts.addresses instanceof List}"
+                }""";
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        jenkins.assertLogContains("keys: [addresses, containerId, fqdn, hostname, primaryIp]", completedBuild);
+        jenkins.assertLogContains("hostname: " + java.net.InetAddress.getLocalHost().getHostName(), completedBuild);
+        jenkins.assertLogContains("addresses: true", completedBuild);
+    }
+
+    @Test
+    void testSelectedFields() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        job.setDefinition(new CpsFlowDefinition(
+                "echo \"keys: ${getBuildHostFacts(fields: ['primaryIp', 'hostname']).keySet().sort()}\"", true));
+        WorkflowRun completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        jenkins.assertLogContains("keys: [hostname, primaryIp]", completedBuild);
+    }
+
+    @Test
+    void testBadField() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        job.setDefinition(new CpsFlowDefinition("getBuildHostFacts(fields: ['macAddress'])", true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.FAILURE, job);
+        jenkins.assertLogContains("Unknown field: macAddress", completedBuild);
+    }
+}
@@ -1,6 +1,14 @@
 package io.jenkins.plugins.miscjenkinsinfotools.pipeline.netInfo;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import hudson.model.Label;
+import hudson.model.Result;
+import hudson.remoting.LocalChannel;
+import hudson.remoting.VirtualChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
@@ -32,4 +40,73 @@ class GetCurrentBuildHostTests {
         String expectedString = java.net.InetAddress.getLocalHost().getHostName();
         jenkins.assertLogContains(expectedString, completedBuild);
     }
+
+    @Test
+    void testOnAgentTwice() throws Exception {
+        String agentLabel = "my-agent";
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+
+        jenkins.createOnlineSlave(Label.get(agentLabel));
+
+        String pipelineScript =
+                """
+                node('my-agent') {
+                  echo "first: ${getCurrentBuildHost()}"
+                  echo "second: ${getCurrentBuildHost()}"
+                }""";
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        long hits = BuildHostCache.getHits();
+        long misses = BuildHostCache.getMisses();
+        WorkflowRun completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        String expectedString = java.net.InetAddress.getLocalHost().getHostName();
+        jenkins.assertLogContains("first: " + expectedString, completedBuild);
+        jenkins.assertLogContains("second: " + expectedString, completedBuild);
+        // the first call may still miss when it beats the lookup started by onOnline, the second one never goes remote
+        assertEquals(2, BuildHostCache.getHits() - hits + BuildHostCache.getMisses() - misses);
+        assertTrue(BuildHostCache.getMisses() - misses <= 1, "the second call made a round trip to the agent");
+    }
+
+    @Test
+    void testFallbackNotCached() throws Exception {
+        VirtualChannel channel = new LocalChannel(Executors.newSingleThreadExecutor());
+        AtomicInteger lookups = new AtomicInteger();
+        BuildHostCache.Lookup fallback = () -> {
+            lookups.incrementAndGet();
+            return new HostnameResolver.Resolved("kernel-name", HostnameResolver.Source.KERNEL);
+        };
+        // DNS timed out and the kernel name stood in, the next call has to ask DNS again
+        assertEquals("kernel-name", BuildHostCache.get(channel, HostnameResolver.Source.DNS, fallback));
+        assertEquals("kernel-name", BuildHostCache.get(channel, HostnameResolver.Source.DNS, fallback));
+        assertEquals(2, lookups.get());
+
+        BuildHostCache.Lookup preferred = () -> {
+            lookups.incrementAndGet();
+            return new HostnameResolver.Resolved("dns-name", HostnameResolver.Source.DNS);
+        };
+        assertEquals("dns-name", BuildHostCache.get(channel, HostnameResolver.Source.DNS, preferred));
+        assertEquals("dns-name", BuildHostCache.get(channel, HostnameResolver.Source.DNS, preferred));
+        assertEquals(3, lookups.get());
+        // the kernel name was never stored under its own source either
+        assertEquals("kernel-name", BuildHostCache.get(channel, HostnameResolver.Source.KERNEL, fallback));
+        assertEquals(4, lookups.get());
+    }
+
+    @Test
+    void testKernelSource() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        job.setDefinition(new CpsFlowDefinition("echo \"kernel: ${getCurrentBuildHost(source: 'kernel')}\"", true));
+        WorkflowRun completedBuild = jenkins.assertBuildStatusSuccess(job.scheduleBuild2(0));
+        String expected = HostnameResolver.kernel();
+        if (expected == null) expected = HostnameResolver.env();
+        if (expected == null) expected = java.net.InetAddress.getLocalHost().getHostName();
+        jenkins.assertLogContains("kernel: " + expected, completedBuild);
+    }
+
+    @Test
+    void testBadSource() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        job.setDefinition(new CpsFlowDefinition("getCurrentBuildHost(source: 'nis')", true));
+        WorkflowRun completedBuild = jenkins.buildAndAssertStatus(Result.FAILURE, job);
+        jenkins.assertLogContains("Unknown source: nis", completedBuild);
+    }
 }
@@ -0,0 +1,192 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Result;
+import hudson.model.queue.QueueListener;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class JobStatusCacheTest {
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+    }
+
+    /**
+     * The build future can complete before onFinalized ran, so wait for the record to catch up.
+     */
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private WorkflowRun build(WorkflowJob job, String script, Result result) throws Exception {
+        job.setDefinition(new CpsFlowDefinition(script, true));
+        WorkflowRun run = jenkins.buildAndAssertStatus(result, job);
+        waitFor(() -> JobStatusCache.get(job).getLastCompletedNumber() == run.getNumber());
+        return run;
+    }
+
+    @Test
+    void testFirstLoad() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        job.setDefinition(new CpsFlowDefinition("echo 'ok'", true));
+        jenkins.buildAndAssertSuccess(job);
+        job.setDefinition(new CpsFlowDefinition("error 'broken'", true));
+        jenkins.buildAndAssertStatus(Result.FAILURE, job);
+        job.setDefinition(new CpsFlowDefinition("unstable 'flaky'", true));
+        WorkflowRun last = jenkins.buildAndAssertStatus(Result.UNSTABLE, job);
+
+        // nothing asked for the job before, so this reads the build records
+        JobStatus status = JobStatusCache.get(job);
+        assertEquals(3, status.getLastBuildNumber());
+        assertFalse(status.isBuilding());
+        assertFalse(status.isQueued());
+        assertEquals(3, status.getLastCompletedNumber());
+        assertEquals(Result.UNSTABLE, status.getLastCompletedResult());
+        assertEquals(last.getStartTimeInMillis() + last.getDuration(), status.getLastCompletedTime());
+        assertEquals(3, status.getLastSuccessfulNumber());
+        assertEquals(1, status.getLastStableNumber());
+        assertEquals(2, status.getLastFailedNumber());
+
+        JobStatus never = JobStatusCache.get(jenkins.createProject(WorkflowJob.class, "test-2"));
+        assertEquals(0, never.getLastBuildNumber());
+        assertEquals(0, never.getLastCompletedNumber());
+        assertNull(never.getLastCompletedResult());
+    }
+
+    @Test
+    void testRunEvents() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        // loaded while the job has no builds, everything after this comes from events
+        assertEquals(0, JobStatusCache.get(job).getLastBuildNumber());
+
+        build(job, "echo 'ok'", Result.SUCCESS);
+        JobStatus status = JobStatusCache.get(job);
+        assertEquals(1, status.getLastSuccessfulNumber());
+        assertEquals(1, status.getLastStableNumber());
+        assertEquals(0, status.getLastFailedNumber());
+
+        build(job, "error 'broken'", Result.FAILURE);
+        status = JobStatusCache.get(job);
+        assertEquals(Result.FAILURE, status.getLastCompletedResult());
+        assertEquals(1, status.getLastSuccessfulNumber());
+        assertEquals(2, status.getLastFailedNumber());
+
+        build(job, "unstable 'flaky'", Result.UNSTABLE);
+        status = JobStatusCache.get(job);
+        assertEquals(3, status.getLastSuccessfulNumber());
+        assertEquals(1, status.getLastStableNumber());
+        assertEquals(2, status.getLastFailedNumber());
+
+        job.setDefinition(new CpsFlowDefinition("sleep 60", true));
+        WorkflowRun run = job.scheduleBuild2(0).waitForStart();
+        jenkins.waitForMessage("Sleeping for", run);
+        status = JobStatusCache.get(job);
+        assertTrue(status.isBuilding());
+        assertEquals(4, status.getLastBuildNumber());
+        assertEquals(3, status.getLastCompletedNumber());
+
+        run.doStop();
+        jenkins.assertBuildStatus(Result.ABORTED, jenkins.waitForCompletion(run));
+        waitFor(() -> !JobStatusCache.get(job).isBuilding());
+        status = JobStatusCache.get(job);
+        assertEquals(4, status.getLastCompletedNumber());
+        assertEquals(Result.ABORTED, status.getLastCompletedResult());
+        assertEquals(3, status.getLastSuccessfulNumber());
+        assertEquals(2, status.getLastFailedNumber());
+    }
+
+    @Test
+    void testQueueEvents() throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject("test-1");
+        assertFalse(JobStatusCache.get(project).isQueued());
+
+        project.scheduleBuild2(600);
+        assertTrue(JobStatusCache.get(project).isQueued());
+
+        jenkins.jenkins.getQueue().cancel(project);
+        assertFalse(JobStatusCache.get(project).isQueued());
+        assertEquals(0, JobStatusCache.get(project).getLastBuildNumber());
+    }
+
+    @Test
+    void testQueuedInsideEnterWaiting() throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject("test-1");
+        assertFalse(JobStatusCache.get(project).isQueued());
+        SeenOnEnter.seen.set(null);
+
+        project.scheduleBuild2(600);
+        // the queue snapshot is not refreshed yet while the listeners run
+        assertEquals(Boolean.TRUE, SeenOnEnter.seen.get());
+        assertTrue(JobStatusCache.get(project).isQueued());
+
+        jenkins.jenkins.getQueue().cancel(project);
+        assertFalse(JobStatusCache.get(project).isQueued());
+    }
+
+    @TestExtension("testQueuedInsideEnterWaiting")
+    public static final class SeenOnEnter extends QueueListener {
+
+        static final AtomicReference<Boolean> seen = new AtomicReference<Boolean>();
+
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem item) {
+            if (item.task instanceof Job) seen.set(JobStatusCache.get((Job<?, ?>) item.task).isQueued());
+        }
+    }
+
+    @Test
+    void testDeletedBuildInvalidates() throws Exception {
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "test-1");
+        build(job, "echo 'ok'", Result.SUCCESS);
+        WorkflowRun second = build(job, "echo 'ok'", Result.SUCCESS);
+        assertEquals(2, JobStatusCache.get(job).getLastSuccessfulNumber());
+
+        second.delete();
+        JobStatus status = JobStatusCache.get(job);
+        assertEquals(1, status.getLastBuildNumber());
+        assertEquals(1, status.getLastSuccessfulNumber());
+        assertEquals(1, status.getLastCompletedNumber());
+    }
+
+    @Test
+    void testMovedAndDeletedJobsInvalidate() throws Exception {
+        MockFolder folder = jenkins.createFolder("folder-a");
+        WorkflowJob moved = jenkins.createProject(WorkflowJob.class, "moved");
+        build(moved, "echo 'ok'", Result.SUCCESS);
+        WorkflowJob deleted = jenkins.createProject(WorkflowJob.class, "deleted");
+        build(deleted, "echo 'ok'", Result.SUCCESS);
+
+        Items.move(moved, folder);
+        deleted.delete();
+        assertEquals(1, JobStatusCache.get(moved).getLastBuildNumber());
+
+        // a new job under the old name must not inherit the old record
+        assertEquals(0, JobStatusCache.get(jenkins.createProject(WorkflowJob.class, "moved")).getLastBuildNumber());
+        assertEquals(0, JobStatusCache.get(jenkins.createProject(WorkflowJob.class, "deleted")).getLastBuildNumber());
+    }
+}
@@ -0,0 +1,128 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class FindJobsQueryCacheTest {
+
+    private final List<Object> key = Arrays.<Object>asList("^test-x-.*$", "", 0, 0);
+
+    private JenkinsRule jenkins;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+        pool = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void afterEach() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentQueriesShareOneEvaluation() throws Exception {
+        FindJobsQueryCache cache = new FindJobsQueryCache(60000, 16);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Callable<Object> query = () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            release.await();
+            return Arrays.asList("test-x-0", "test-x-1");
+        };
+
+        Future<Object> first = pool.submit(() -> cache.get(key, query, pool).get());
+        started.await();
+        // joining the query in flight does not block the caller
+        CompletableFuture<Object> second = cache.get(key, query, pool);
+        assertFalse(second.isDone());
+        assertEquals(1, cache.getShared());
+        release.countDown();
+
+        assertEquals(Arrays.asList("test-x-0", "test-x-1"), first.get());
+        assertSame(first.get(), second.get());
+        assertEquals(1, runs.get());
+        assertEquals(1, cache.getEvaluations());
+        assertEquals(1, cache.getShared());
+    }
+
+    @Test
+    void testResultExpires() throws Exception {
+        FindJobsQueryCache cache = new FindJobsQueryCache(500, 16);
+        AtomicInteger runs = new AtomicInteger();
+        // slower than the time to live, which only starts once the query finished
+        Callable<Object> query = () -> {
+            Thread.sleep(600);
+            return runs.incrementAndGet();
+        };
+
+        assertEquals(1, cache.get(key, query, pool).get());
+        assertEquals(1, cache.get(key, query, pool).get());
+        assertEquals(1, cache.getShared());
+
+        Thread.sleep(600);
+        assertEquals(2, cache.get(key, query, pool).get());
+        assertEquals(2, cache.getEvaluations());
+        assertEquals(1, cache.getShared());
+    }
+
+    @Test
+    void testIndexChangeInvalidates() throws Exception {
+        FindJobsQueryCache cache = new FindJobsQueryCache(60000, 16);
+        AtomicInteger runs = new AtomicInteger();
+        Callable<Object> query = () -> runs.incrementAndGet();
+        JobPathIndex.get().getNames();
+
+        assertEquals(1, cache.get(key, query, pool).get());
+        assertEquals(1, cache.get(key, query, pool).get());
+        long generation = JobPathIndex.get().getGeneration();
+        jenkins.createProject(WorkflowJob.class, "test-x-0");
+        assertNotEquals(generation, JobPathIndex.get().getGeneration());
+
+        assertEquals(2, cache.get(key, query, pool).get());
+        assertEquals(2, cache.getEvaluations());
+        assertEquals(1, cache.getShared());
+    }
+
+    @Test
+    void testWaiterRetriesWhenEvaluationIsInterrupted() throws Exception {
+        FindJobsQueryCache cache = new FindJobsQueryCache(60000, 16);
+        CountDownLatch started = new CountDownLatch(1);
+        Callable<Object> blocked = () -> {
+            started.countDown();
+            Thread.sleep(60000);
+            return "never";
+        };
+
+        Future<Object> first = pool.submit(() -> cache.get(key, blocked, pool).get());
+        started.await();
+        CompletableFuture<Object> second = cache.get(key, () -> "retried", pool);
+        // stopping the step that runs the query must not fail the one that only waits for it
+        first.cancel(true);
+
+        assertEquals("retried", second.get());
+        assertEquals(2, cache.getEvaluations());
+    }
+}
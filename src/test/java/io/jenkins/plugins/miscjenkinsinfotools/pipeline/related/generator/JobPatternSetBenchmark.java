@@ -0,0 +1,104 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * findJobs matching against synthetic job trees, without a controller.
+ * Jobs live in folders up to {@code depth} levels deep, like org/team/repo/branch, the patterns mix includes with a
+ * literal prefix, includes that can match anywhere, and excludes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class JobPatternSetBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int jobs;
+
+    @Param({"2", "6"})
+    public int depth;
+
+    @Param({"1", "10", "50"})
+    public int patterns;
+
+    private TreeSet<String> names;
+    private List<String> includes;
+    private List<String> excludes;
+    private JobPatternSet compiled;
+    private List<Pattern> separate;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        names = new TreeSet<String>();
+        while (names.size() < jobs) {
+            StringBuilder path = new StringBuilder("org-" + random.nextInt(20));
+            for (int level = 1; level < depth; level++) {
+                path.append("/folder-").append(level).append('-').append(random.nextInt(10));
+            }
+            path.append("/repo-").append(random.nextInt(1000)).append("/branch-").append(random.nextInt(50));
+            names.add(path.toString());
+        }
+        includes = new ArrayList<String>();
+        excludes = new ArrayList<String>();
+        for (int i = 0; i < patterns; i++) {
+            switch (i % 4) {
+                case 0:
+                    includes.add("org-" + (i % 20) + "/.*/repo-" + i + "/.*");
+                    break;
+                case 1:
+                    includes.add(".*/repo-" + i + "[0-9]/branch-1");
+                    break;
+                case 2:
+                    includes.add("org-" + (i % 20) + "/folder-1-" + (i % 10) + "/.*");
+                    break;
+                default:
+                    excludes.add(".*/branch-" + (i % 50));
+            }
+        }
+        compiled = JobPatternSet.compile(includes, excludes);
+        separate = new ArrayList<Pattern>();
+        for (String str : includes) {
+            separate.add(Pattern.compile(str));
+        }
+    }
+
+    @Benchmark
+    public JobPatternSet compile() {
+        return JobPatternSet.compile(includes, excludes);
+    }
+
+    @Benchmark
+    public void match(Blackhole blackhole) throws InterruptedException {
+        compiled.forEachMatch(names, name -> {
+            blackhole.consume(name);
+            return true;
+        });
+    }
+
+    /**
+     * Every path against every include on its own, the way findJobs used to match.
+     */
+    @Benchmark
+    public void matchPerPattern(Blackhole blackhole) {
+        for (String name : names) {
+            for (Pattern pattern : separate) {
+                if (pattern.matcher(name).matches()) {
+                    blackhole.consume(name);
+                    break;
+                }
+            }
+        }
+    }
+}
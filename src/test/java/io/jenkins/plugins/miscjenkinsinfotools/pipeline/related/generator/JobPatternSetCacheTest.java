@@ -0,0 +1,57 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.related.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JobPatternSetCacheTest {
+
+    @Test
+    void testNormalizedKey() {
+        JobPatternSetCache cache = new JobPatternSetCache(JobPatternSetCache.SIZE);
+        JobPatternSet first = cache.get(Arrays.asList("^b.*$", "^a.*$"), Collections.singletonList("^c$"));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // permuted, duplicated and padded with empty entries, still the same lists
+        JobPatternSet second = cache.get(Arrays.asList("^a.*$", "", "^b.*$", "^a.*$"), Arrays.asList("^c$", "^c$"));
+        assertSame(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+
+        // an include is not an exclude
+        assertNotSame(first, cache.get(Collections.singletonList("^c$"), Arrays.asList("^b.*$", "^a.*$")));
+        assertEquals(2, cache.getMisses());
+        assertEquals(
+                Arrays.asList("^a.*$", "^b.*$"), JobPatternSetCache.normalize(Arrays.asList("^b.*$", null, "^a.*$")));
+    }
+
+    @Test
+    void testEvictionAtSize() {
+        JobPatternSetCache cache = new JobPatternSetCache(JobPatternSetCache.SIZE);
+        List<String> none = Collections.emptyList();
+        for (int i = 0; i < JobPatternSetCache.SIZE; i++) {
+            cache.get(Collections.singletonList("^job-" + i + "$"), none);
+        }
+        assertEquals(JobPatternSetCache.SIZE, cache.size());
+        assertEquals(0, cache.getEvictions());
+
+        // touch the eldest entry, so the second one is the least recently used
+        JobPatternSet eldest = cache.get(Collections.singletonList("^job-0$"), none);
+        cache.get(Collections.singletonList("^job-new$"), none);
+        assertEquals(JobPatternSetCache.SIZE, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertSame(eldest, cache.get(Collections.singletonList("^job-0$"), none));
+        assertEquals(2, cache.getHits());
+
+        cache.get(Collections.singletonList("^job-1$"), none);
+        assertEquals(JobPatternSetCache.SIZE + 2, cache.getMisses());
+        assertEquals(2, cache.getEvictions());
+    }
+}
@@ -0,0 +1,88 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.scale;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples the stacks of the CPS VM threads at a fixed interval while it is open.
+ * A sample counts as held by the plugin when the CPS VM thread is running plugin code, which is time no other step of
+ * that pipeline can make progress, and as blocked when the thread waits for a monitor.  Multiplying the counts with the
+ * interval gives an estimate of the time spent in either state, summed over all pipelines.
+ */
+final class CpsThreadSampler implements AutoCloseable {
+
+    private static final String CPS_THREAD = "Running CpsFlowExecution";
+    private static final String PLUGIN_PACKAGE = "io.jenkins.plugins.miscjenkinsinfotools.";
+
+    private final long intervalMillis;
+    private final Thread sampler;
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong cpsSamples = new AtomicLong();
+    private final AtomicLong inPluginSamples = new AtomicLong();
+    private final AtomicLong blockedSamples = new AtomicLong();
+    private volatile boolean running = true;
+
+    CpsThreadSampler(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+        this.sampler = new Thread(this::run, "CPS thread sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    private void run() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        while (running) {
+            samples.incrementAndGet();
+            for (ThreadInfo info : threads.dumpAllThreads(false, false)) {
+                if (info == null || !info.getThreadName().startsWith(CPS_THREAD)) continue;
+                cpsSamples.incrementAndGet();
+                if (info.getThreadState() == Thread.State.BLOCKED) blockedSamples.incrementAndGet();
+                for (StackTraceElement frame : info.getStackTrace()) {
+                    if (frame.getClassName().startsWith(PLUGIN_PACKAGE)) {
+                        inPluginSamples.incrementAndGet();
+                        break;
+                    }
+                }
+            }
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return estimated milliseconds CPS VM threads spent running plugin code
+     */
+    long getInPluginMillis() {
+        return inPluginSamples.get() * intervalMillis;
+    }
+
+    /**
+     * @return estimated milliseconds CPS VM threads spent waiting for a monitor
+     */
+    long getBlockedMillis() {
+        return blockedSamples.get() * intervalMillis;
+    }
+
+    /**
+     * @return estimated milliseconds CPS VM threads were running at all
+     */
+    long getBusyMillis() {
+        return cpsSamples.get() * intervalMillis;
+    }
+
+    long getSamples() {
+        return samples.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        sampler.interrupt();
+        sampler.join();
+    }
+}
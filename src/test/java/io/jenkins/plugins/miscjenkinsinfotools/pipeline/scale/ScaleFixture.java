@@ -0,0 +1,54 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.scale;
+
+import hudson.model.FreeStyleProject;
+import hudson.slaves.DumbSlave;
+import hudson.slaves.JNLPLauncher;
+import java.io.File;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+
+/**
+ * Populates a {@link JenkinsRule} the way a large controller looks: folders of jobs, some of them with builds, and
+ * many agents that never connect.
+ * Sizes come from system properties, so {@code mvn -P scale test -Dscale.folders=500} grows the instance without a
+ * code change.
+ */
+final class ScaleFixture {
+
+    static final int FOLDERS = Integer.getInteger("scale.folders", 50);
+    static final int JOBS_PER_FOLDER = Integer.getInteger("scale.jobsPerFolder", 40);
+    static final int BUILT_PER_FOLDER = Integer.getInteger("scale.builtPerFolder", 4);
+    static final int AGENTS = Integer.getInteger("scale.agents", 500);
+
+    /** The jobs that have a successful build, {@link #BUILT_PER_FOLDER} per folder, escaped for a slashy string. */
+    static final String BUILT_JOBS = "folder-\\d+\\/job-0*(" + builtAlternatives() + ")";
+
+    private ScaleFixture() {}
+
+    static void populate(JenkinsRule jenkins) throws Exception {
+        for (int f = 0; f < FOLDERS; f++) {
+            MockFolder folder = jenkins.createFolder(String.format("folder-%03d", f));
+            for (int j = 0; j < JOBS_PER_FOLDER; j++) {
+                FreeStyleProject project = folder.createProject(FreeStyleProject.class, String.format("job-%03d", j));
+                if (j < BUILT_PER_FOLDER) jenkins.buildAndAssertSuccess(project);
+            }
+        }
+        File home = jenkins.jenkins.getRootDir();
+        for (int a = 0; a < AGENTS; a++) {
+            String name = String.format("agent-%04d", a);
+            // an inbound agent nobody launches stays offline and costs no process
+            DumbSlave agent = new DumbSlave(name, new File(home, "agents/" + name).getPath(), new JNLPLauncher());
+            agent.setLabelString("linux pool-" + (a % 10) + (a % 3 == 0 ? " docker" : ""));
+            jenkins.jenkins.addNode(agent);
+        }
+    }
+
+    private static String builtAlternatives() {
+        StringBuilder alternatives = new StringBuilder();
+        for (int j = 0; j < BUILT_PER_FOLDER; j++) {
+            if (j > 0) alternatives.append('|');
+            alternatives.append(j);
+        }
+        return alternatives.toString();
+    }
+}
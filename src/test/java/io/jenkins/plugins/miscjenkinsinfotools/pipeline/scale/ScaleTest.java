@@ -0,0 +1,110 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.scale;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.Result;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.flow.FlowDurabilityHint;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.job.properties.DurabilityHintJobProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Runs the plugin's steps against a large instance and fails when one of them gets slower than its budget, or when
+ * the pipeline state they leave behind grows too big.
+ * Only runs with {@code mvn -P scale test}.  Budgets are milliseconds per call, and can be changed with the system
+ * properties {@code scale.budget.<step name>}, the saved program size with {@code scale.budget.programBytes}.
+ */
+@Tag("scale")
+@WithJenkins
+class ScaleTest {
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+    }
+
+    private static long budget(String step, long defaultMillis) {
+        return Long.getLong("scale.budget." + step, defaultMillis);
+    }
+
+    @Test
+    void testStepsOnLargeInstance() throws Exception {
+        ScaleFixture.populate(jenkins);
+        int built = ScaleFixture.FOLDERS * ScaleFixture.BUILT_PER_FOLDER;
+
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "scale");
+        // the program is saved whenever the pipeline waits, so its size is what a restart would have to load
+        job.addProperty(new DurabilityHintJobProperty(FlowDurabilityHint.MAX_SURVIVABILITY));
+        String pipelineScript =
+                """
+                def all = findJobs(includes: [/folder-.*/], excludes: [])
+                def deps = findJobs(includes: [/%s/], excludes: [])
+                def count = findJobs(includes: [/folder-.*/], excludes: [/.*job-00.*/], countOnly: true)
+                echo "jobs: ${all.size()} deps: ${deps.size()} count: ${count}"
+                relatedJobChecks(deps: deps)
+                def number = getLastSuccessfulBuildNumber(job: deps[0])
+                def labels = getAllLabelsForAllNodes()
+                echo "build: ${number} nodes: ${labels.size()}"
+                echo 'results ready'
+                sleep 600
+                """
+                        .formatted(ScaleFixture.BUILT_JOBS);
+        job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+        WorkflowRun run = job.scheduleBuild2(0).waitForStart();
+        jenkins.waitForMessage("results ready", run);
+        long programBytes = savedProgramSize(run);
+        run.doStop();
+        jenkins.assertBuildStatus(Result.ABORTED, jenkins.waitForCompletion(run));
+
+        jenkins.assertLogContains(
+                "jobs: " + ScaleFixture.FOLDERS * ScaleFixture.JOBS_PER_FOLDER + " deps: " + built, run);
+        jenkins.assertLogContains("nodes: " + ScaleFixture.AGENTS, run);
+
+        Map<String, List<Long>> timings = StepTimings.of(run);
+        assertWithin(timings, "findJobs", budget("findJobs", 2000));
+        assertWithin(timings, "relatedJobChecks", budget("relatedJobChecks", 5000));
+        assertWithin(timings, "getLastSuccessfulBuildNumber", budget("getLastSuccessfulBuildNumber", 1000));
+        assertWithin(timings, "getAllLabelsForAllNodes", budget("getAllLabelsForAllNodes", 1000));
+        long programBudget = budget("programBytes", 1024 * 1024);
+        assertTrue(
+                programBytes <= programBudget,
+                "program.dat is " + programBytes + " bytes, the budget is " + programBudget);
+    }
+
+    private static void assertWithin(Map<String, List<Long>> timings, String step, long budget) {
+        List<Long> samples = timings.get(step);
+        assertNotNull(samples, "no timing recorded for " + step);
+        long slowest = StepTimings.max(samples);
+        assertTrue(
+                slowest <= budget,
+                step + " took " + slowest + " ms, the budget is " + budget + " ms, all durations: " + timings);
+    }
+
+    /**
+     * Waits for the pipeline to save its program after it started waiting.
+     */
+    private static long savedProgramSize(WorkflowRun run) throws InterruptedException {
+        File program = new File(run.getRootDir(), "program.dat");
+        long size = -1;
+        for (int i = 0; i < 100; i++) {
+            long current = program.length();
+            if (current > 0 && current == size) return size;
+            size = current;
+            Thread.sleep(100);
+        }
+        assertTrue(size > 0, "the pipeline never saved its program");
+        return size;
+    }
+}
@@ -0,0 +1,64 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.scale;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jenkinsci.plugins.workflow.actions.TimingAction;
+import org.jenkinsci.plugins.workflow.cps.nodes.StepAtomNode;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+
+/**
+ * Step durations read back from the flow graph of a build.
+ * A step node records when it started, and the node that follows it starts once the step returned, so the difference
+ * is what the pipeline waited for the step, including the time its result took to reach the CPS VM thread.
+ */
+final class StepTimings {
+
+    private StepTimings() {}
+
+    /**
+     * @return durations in milliseconds per step function name, in no particular order
+     */
+    static Map<String, List<Long>> of(WorkflowRun run) {
+        Map<String, List<Long>> result = new HashMap<String, List<Long>>();
+        FlowExecution execution = run.getExecution();
+        if (execution == null) return result;
+        List<FlowNode> nodes = new DepthFirstScanner().allNodes(execution);
+        Map<String, FlowNode> next = new HashMap<String, FlowNode>();
+        for (FlowNode node : nodes) {
+            for (FlowNode parent : node.getParents()) {
+                next.put(parent.getId(), node);
+            }
+        }
+        for (FlowNode node : nodes) {
+            if (!(node instanceof StepAtomNode)) continue;
+            StepDescriptor descriptor = ((StepAtomNode) node).getDescriptor();
+            FlowNode after = next.get(node.getId());
+            if (descriptor == null || after == null) continue;
+            long duration = TimingAction.getStartTime(after) - TimingAction.getStartTime(node);
+            result.computeIfAbsent(descriptor.getFunctionName(), k -> new ArrayList<Long>()).add(duration);
+        }
+        return result;
+    }
+
+    /**
+     * @return the value below which the given share of the samples fall, nearest rank, 0 for no samples
+     */
+    static long percentile(List<Long> samples, double share) {
+        if (samples.isEmpty()) return 0;
+        List<Long> sorted = new ArrayList<Long>(samples);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(share * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+    }
+
+    static long max(List<Long> samples) {
+        return samples.isEmpty() ? 0 : Collections.max(samples);
+    }
+}
@@ -0,0 +1,125 @@
+package io.jenkins.plugins.miscjenkinsinfotools.pipeline.scale;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.queue.QueueTaskFuture;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Starts many pipelines at the same moment, all calling the plugin's steps against a populated instance, and reports
+ * step latency percentiles, how long the CPS VM threads were held by plugin code or blocked, and how long the builds
+ * waited in the queue.
+ * Only runs with {@code mvn -P stress test}.  The number of builds is the system property {@code stress.builds}, the
+ * instance size comes from {@link ScaleFixture}.  The report is printed and written to target/stress-report.txt.
+ * Setting {@code stress.budget.inPluginMillis} also fails the run when the CPS VM threads spent longer in plugin code.
+ */
+@Tag("stress")
+@WithJenkins
+class StressTest {
+
+    static final int BUILDS = Integer.getInteger("stress.builds", 100);
+    static final long SAMPLE_INTERVAL = Long.getLong("stress.sampleInterval", 5);
+
+    private JenkinsRule jenkins;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        jenkins = rule;
+    }
+
+    @Test
+    void testConcurrentPipelines() throws Exception {
+        ScaleFixture.populate(jenkins);
+        String pipelineScript =
+                """
+                def deps = findJobs(includes: [/%s/], excludes: [])
+                relatedJobChecks(deps: deps)
+                relatedJobChecks(deps: deps, failFast: false, returnStatus: true)
+                getLastBuildNumbers(jobs: deps)
+                findJobs(includes: [/folder-.*/], excludes: [], countOnly: true)
+                findNodesByLabel('linux && docker')
+                """
+                        .formatted(ScaleFixture.BUILT_JOBS);
+        List<WorkflowJob> jobs = new ArrayList<WorkflowJob>();
+        for (int i = 0; i < BUILDS; i++) {
+            WorkflowJob job = jenkins.createProject(WorkflowJob.class, String.format("stress-%04d", i));
+            job.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+            jobs.add(job);
+        }
+
+        List<WorkflowRun> runs = new ArrayList<WorkflowRun>();
+        List<Long> queueWait = new ArrayList<Long>();
+        List<Long> scheduled = new ArrayList<Long>();
+        CpsThreadSampler sampler = new CpsThreadSampler(SAMPLE_INTERVAL);
+        try {
+            List<QueueTaskFuture<WorkflowRun>> futures = new ArrayList<QueueTaskFuture<WorkflowRun>>();
+            for (WorkflowJob job : jobs) {
+                scheduled.add(System.currentTimeMillis());
+                futures.add(job.scheduleBuild2(0));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                WorkflowRun run = jenkins.assertBuildStatusSuccess(futures.get(i));
+                runs.add(run);
+                queueWait.add(run.getStartTimeInMillis() - scheduled.get(i));
+            }
+        } finally {
+            sampler.close();
+        }
+        report(runs, queueWait, sampler);
+    }
+
+    private void report(List<WorkflowRun> runs, List<Long> queueWait, CpsThreadSampler sampler) throws Exception {
+        Map<String, List<Long>> latencies = new TreeMap<String, List<Long>>();
+        for (WorkflowRun run : runs) {
+            for (Map.Entry<String, List<Long>> e : StepTimings.of(run).entrySet()) {
+                latencies.computeIfAbsent(e.getKey(), k -> new ArrayList<Long>()).addAll(e.getValue());
+            }
+        }
+        StringBuilder report = new StringBuilder();
+        report.append("builds: ").append(runs.size()).append('\n');
+        for (Map.Entry<String, List<Long>> e : latencies.entrySet()) {
+            report.append(line(e.getKey() + " ms", e.getValue()));
+        }
+        report.append(line("queue wait ms", queueWait));
+        report.append("cps threads busy ms: ").append(sampler.getBusyMillis()).append('\n');
+        report.append("cps threads in plugin code ms: ").append(sampler.getInPluginMillis()).append('\n');
+        report.append("cps threads blocked ms: ").append(sampler.getBlockedMillis()).append('\n');
+        report.append("samples: ").append(sampler.getSamples()).append(" every ").append(SAMPLE_INTERVAL);
+        report.append(" ms\n");
+
+        System.out.print(report);
+        File target = new File("target");
+        if (target.isDirectory()) {
+            byte[] bytes = report.toString().getBytes(StandardCharsets.UTF_8);
+            Files.write(new File(target, "stress-report.txt").toPath(), bytes);
+        }
+
+        Long budget = Long.getLong("stress.budget.inPluginMillis");
+        if (budget != null) {
+            assertTrue(
+                    sampler.getInPluginMillis() <= budget,
+                    "CPS VM threads spent " + sampler.getInPluginMillis() + " ms in plugin code, the budget is "
+                            + budget + " ms");
+        }
+    }
+
+    private static String line(String name, List<Long> samples) {
+        return name + ": p50=" + StepTimings.percentile(samples, 0.50) + " p90=" + StepTimings.percentile(samples, 0.90)
+                + " p99=" + StepTimings.percentile(samples, 0.99) + " max=" + StepTimings.max(samples) + " n="
+                + samples.size() + '\n';
+    }
+}